@@ -1,5 +1,6 @@
 package hudson.plugins.tics;
 
+import java.io.IOException;
 import java.io.PrintStream;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
@@ -10,16 +11,23 @@ import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -37,6 +45,8 @@ public abstract class AbstractApiCall {
     private final Optional<Pair<String, String>> credentials;
     private final String apiCallPrefix;
     private final String url;
+    private int timeoutSeconds = 300;
+    private volatile CloseableHttpClient sharedHttpClient;
     public static final ImmutableList<Pattern> LOCALHOST_PATTERNS = ImmutableList.of(Pattern.compile("localhost"), Pattern.compile("127\\..*"));
 
 
@@ -47,15 +57,37 @@ public abstract class AbstractApiCall {
         this.url = url;
     }
 
-    protected final CloseableHttpClient createHttpClient() throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException, MeasureApiCallException {
-        final int timeoutMs = 300 * 1000;
-        final RequestConfig requestConfig = RequestConfig.custom()
+    /** Sets the connect, socket and connection request timeout of this call. Defaults to 300 seconds. */
+    public void setTimeoutSeconds(final int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Makes this call send its requests with the given client, e.g. one that is shared with other calls to the same viewer,
+     * instead of with a new client per request. The client is not closed by this call. The timeout of this call still applies.
+     */
+    void setSharedHttpClient(final CloseableHttpClient client) {
+        this.sharedHttpClient = client;
+    }
+
+    /** Returns a client for a single request, which should be closed after the request; closing a shared client has no effect. */
+    protected final CloseableHttpClient openHttpClient() throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException, MeasureApiCallException {
+        final CloseableHttpClient shared = sharedHttpClient;
+        return shared == null ? createHttpClient() : new SharedHttpClient(shared, getRequestConfig());
+    }
+
+    private RequestConfig getRequestConfig() {
+        final int timeoutMs = timeoutSeconds * 1000;
+        return RequestConfig.custom()
                 .setConnectTimeout(timeoutMs)
                 .setSocketTimeout(timeoutMs)
                 .setConnectionRequestTimeout(timeoutMs)
                 .build();
+    }
+
+    protected final CloseableHttpClient createHttpClient() throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException, MeasureApiCallException {
         HttpClientBuilder builder = HttpClients.custom()
-                .setDefaultRequestConfig(requestConfig);
+                .setDefaultRequestConfig(getRequestConfig());
         final CredentialsProvider credsProvider = new BasicCredentialsProvider();
 
         if (credentials.isPresent()) {
@@ -65,30 +97,25 @@ public abstract class AbstractApiCall {
         }
 
         String proxyUsageMsg = "";
-        final Jenkins jenkins = Jenkins.get();
-
-        if (jenkins != null) {
-            final ProxyConfiguration proxy = jenkins.proxy;
-            if (proxy != null) {
-                final String proxyName = proxy.getName();
-                final int proxyPort = proxy.getPort();
-                final ImmutableList<Pattern> noProxyPatterns = ImmutableList.copyOf(proxy.getNoProxyHostPatterns());
-                final String proxyUser = proxy.getUserName();
-                final String proxyPass = Secret.toString(proxy.getSecretPassword());
-
-                if (!isProxyExempted(url, noProxyPatterns)) {
-                    proxyUsageMsg += "Using proxy: " + proxyName + ":" + proxyPort;
-                    final HttpHost hostProxy = new HttpHost(proxyName, proxyPort);
-                    builder = builder.setProxy(hostProxy);
-                    // Only set credentials if provided.
-                    if (!Strings.isNullOrEmpty(proxyUser) && !Strings.isNullOrEmpty(proxyPass)) {
-                        proxyUsageMsg += " with credentials for " + proxyUser;
-                        credsProvider.setCredentials(
-                            new AuthScope(proxyName, proxyPort),
-                            new UsernamePasswordCredentials(proxyUser, proxyPass)
-                        );
-                    }
-                }
+        final Optional<ProxyConfiguration> optProxy = getApplicableProxy();
+
+        if (optProxy.isPresent()) {
+            final ProxyConfiguration proxy = optProxy.get();
+            final String proxyName = proxy.getName();
+            final int proxyPort = proxy.getPort();
+            final String proxyUser = proxy.getUserName();
+            final String proxyPass = Secret.toString(proxy.getSecretPassword());
+
+            proxyUsageMsg += "Using proxy: " + proxyName + ":" + proxyPort;
+            final HttpHost hostProxy = new HttpHost(proxyName, proxyPort);
+            builder = builder.setProxy(hostProxy);
+            // Only set credentials if provided.
+            if (!Strings.isNullOrEmpty(proxyUser) && !Strings.isNullOrEmpty(proxyPass)) {
+                proxyUsageMsg += " with credentials for " + proxyUser;
+                credsProvider.setCredentials(
+                    new AuthScope(proxyName, proxyPort),
+                    new UsernamePasswordCredentials(proxyUser, proxyPass)
+                );
             }
         }
 
@@ -98,6 +125,62 @@ public abstract class AbstractApiCall {
     }
 
 
+    /** A shared client, with the timeouts of the call that uses it, that is closed by its owner instead of after a request. */
+    private static final class SharedHttpClient extends CloseableHttpClient {
+        private final CloseableHttpClient delegate;
+        private final RequestConfig requestConfig;
+
+        SharedHttpClient(final CloseableHttpClient delegate, final RequestConfig requestConfig) {
+            this.delegate = delegate;
+            this.requestConfig = requestConfig;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(final HttpHost target, final HttpRequest request, final HttpContext context) throws IOException {
+            final HttpClientContext clientContext = HttpClientContext.adapt(context == null ? new BasicHttpContext() : context);
+            clientContext.setRequestConfig(requestConfig);
+            return delegate.execute(target, request, clientContext);
+        }
+
+        @Override
+        public void close() {
+            // Closed by its owner
+        }
+
+        @Override
+        @Deprecated
+        public HttpParams getParams() {
+            return delegate.getParams();
+        }
+
+        @Override
+        @Deprecated
+        public ClientConnectionManager getConnectionManager() {
+            return delegate.getConnectionManager();
+        }
+    }
+
+    /** Returns the Jenkins proxy configuration if requests to this call's URL should go through it. */
+    private Optional<ProxyConfiguration> getApplicableProxy() {
+        final Jenkins jenkins = Jenkins.get();
+        if (jenkins == null || jenkins.proxy == null) {
+            return Optional.empty();
+        }
+        final ProxyConfiguration proxy = jenkins.proxy;
+        final ImmutableList<Pattern> noProxyPatterns = ImmutableList.copyOf(proxy.getNoProxyHostPatterns());
+        if (isProxyExempted(url, noProxyPatterns)) {
+            return Optional.empty();
+        }
+        return Optional.of(proxy);
+    }
+
+    /** Describes how requests of this call reach the viewer, e.g. "direct" or "proxy host:port". */
+    public String getProxyRoute() {
+        return getApplicableProxy()
+                .map(proxy -> "proxy " + proxy.getName() + ":" + proxy.getPort())
+                .orElse("direct");
+    }
+
     protected boolean isProxyExempted(final String urlStr, final ImmutableList<Pattern> noProxyPatterns) {
         Matcher matcher;
         // Bypassing proxy for internal addresses by default
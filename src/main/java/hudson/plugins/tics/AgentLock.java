@@ -0,0 +1,118 @@
+package hudson.plugins.tics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Lock on a resource of an agent that is shared by all executors of that agent, and by other processes on it.
+ * The lock is held with a {@link FileLock} on a lock file, which the operating system releases when the process that holds it ends,
+ * so a lock cannot be left behind by a crashed build and does not have to be taken over.
+ * A file lock is held by the whole process, so the locks that the agent holds are also kept in {@link #HELD}, to keep out its other executors.
+ * The lock file is never deleted, as a process that opened it before the deletion could then lock a file that no longer exists.
+ */
+final class AgentLock {
+    private static final long POLL_INTERVAL_MS = 5000;
+    /** Lock files that this process has locked, by absolute path. Guarded by itself. */
+    private static final Map<String, FileChannel> HELD = new HashMap<>();
+
+    private final FilePath lockFile;
+
+    private AgentLock(final FilePath lockFile) {
+        this.lockFile = lockFile;
+    }
+
+    /** Waits until the lock is acquired. */
+    static AgentLock acquire(final FilePath lockFile, final TaskListener listener, final String description) throws IOException, InterruptedException {
+        boolean logged = false;
+        while (!lockFile.act(new TryLock())) {
+            if (!logged) {
+                listener.getLogger().println(TicsAnalyzer.LOGGING_PREFIX + "Waiting for another build on this agent that holds the lock on the " + description);
+                logged = true;
+            }
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+        return new AgentLock(lockFile);
+    }
+
+    /** Returns null if the lock is held by someone else. */
+    static AgentLock tryAcquire(final FilePath lockFile) throws IOException, InterruptedException {
+        return lockFile.act(new TryLock()) ? new AgentLock(lockFile) : null;
+    }
+
+    void release() throws IOException, InterruptedException {
+        lockFile.act(new Unlock());
+    }
+
+    /** Locks the given lock file, unless this or another process holds it. Returns whether it did. To be called on the agent. */
+    static boolean tryLock(final File lockFile) throws IOException {
+        final String key = lockFile.getAbsolutePath();
+        synchronized (HELD) {
+            if (HELD.containsKey(key)) {
+                return false;
+            }
+            Files.createDirectories(lockFile.getParentFile().toPath());
+            if (lockFile.isDirectory()) {
+                // Left behind by an earlier version, which locked by creating a directory
+                Files.deleteIfExists(lockFile.toPath());
+            }
+            final FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = null;
+            try {
+                lock = channel.tryLock();
+            } catch (final OverlappingFileLockException e) {
+                // Held by this process, through a channel that is not in HELD
+            } finally {
+                if (lock == null) {
+                    channel.close();
+                }
+            }
+            if (lock == null) {
+                return false;
+            }
+            HELD.put(key, channel);
+            return true;
+        }
+    }
+
+    /** Releases a lock taken with {@link #tryLock(File)}. To be called on the agent. */
+    static void unlock(final File lockFile) throws IOException {
+        synchronized (HELD) {
+            final FileChannel channel = HELD.remove(lockFile.getAbsolutePath());
+            if (channel != null) {
+                // Also releases the lock
+                channel.close();
+            }
+        }
+    }
+
+    private static final class TryLock extends MasterToSlaveFileCallable<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Boolean invoke(final File lockFile, final VirtualChannel channel) throws IOException {
+            return tryLock(lockFile);
+        }
+    }
+
+    private static final class Unlock extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Void invoke(final File lockFile, final VirtualChannel channel) throws IOException {
+            unlock(lockFile);
+            return null;
+        }
+    }
+}
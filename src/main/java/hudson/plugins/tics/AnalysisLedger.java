@@ -0,0 +1,115 @@
+package hudson.plugins.tics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.base.Joiner;
+
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.Jenkins;
+
+/**
+ * Records on the controller which commits were analyzed successfully, keyed by viewer, project, branch, commit and metrics,
+ * so that an analysis of a commit that was analyzed before can be skipped.
+ * <p>
+ * The ledger is stored in JENKINS_HOME/tics-analysis-ledger.xml. Only the most recent entries are kept.
+ */
+public final class AnalysisLedger implements Saveable {
+    private static final Logger LOGGER = Logger.getLogger(AnalysisLedger.class.getName());
+    private static final int MAX_ENTRIES = Integer.getInteger(AnalysisLedger.class.getName() + ".maxEntries", 10000);
+    private static AnalysisLedger instance;
+
+    /** Ordered from least to most recently recorded. Guarded by the instance. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    /** A successful analysis of a commit. */
+    public static final class Entry {
+        private final String build;
+        private final long startedMillis;
+        private final long finishedMillis;
+
+        Entry(final String build, final long startedMillis, final long finishedMillis) {
+            this.build = build;
+            this.startedMillis = startedMillis;
+            this.finishedMillis = finishedMillis;
+        }
+
+        /** The full display name of the build that did the analysis. */
+        public String getBuild() {
+            return build;
+        }
+
+        public long getStartedMillis() {
+            return startedMillis;
+        }
+
+        public long getFinishedMillis() {
+            return finishedMillis;
+        }
+    }
+
+    private AnalysisLedger() {
+    }
+
+    public static synchronized AnalysisLedger get() {
+        if (instance == null) {
+            instance = new AnalysisLedger();
+            instance.load();
+        }
+        return instance;
+    }
+
+    static String getKey(final String viewer, final String project, final String branch, final String commit, final Metrics calc, final Metrics recalc) {
+        return Joiner.on('\n').join(viewer, project, branch, commit,
+                Joiner.on(',').join(calc.getEnabledMetrics()), Joiner.on(',').join(recalc.getEnabledMetrics()));
+    }
+
+    public synchronized Optional<Entry> lookup(final String key) {
+        return Optional.ofNullable(entries.get(key));
+    }
+
+    /** Records the entry and saves the ledger within the same lock, so that a concurrent record cannot be lost or saved out of order. */
+    public synchronized void record(final String key, final Entry entry) {
+        entries.remove(key);
+        entries.put(key, entry);
+        final Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > MAX_ENTRIES && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        try {
+            save();
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save the TICS analysis ledger", e);
+        }
+    }
+
+    private XmlFile getConfigFile() {
+        return new XmlFile(Jenkins.XSTREAM2, new File(Jenkins.get().getRootDir(), "tics-analysis-ledger.xml"));
+    }
+
+    @Override
+    public synchronized void save() throws IOException {
+        getConfigFile().write(this);
+        SaveableListener.fireOnChange(this, getConfigFile());
+    }
+
+    private synchronized void load() {
+        final XmlFile file = getConfigFile();
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            file.unmarshal(this);
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARNING, "Could not load the TICS analysis ledger from " + file, e);
+        }
+    }
+}
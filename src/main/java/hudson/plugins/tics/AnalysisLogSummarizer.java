@@ -0,0 +1,77 @@
+package hudson.plugins.tics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+
+import hudson.console.LineTransformationOutputStream;
+
+/**
+ * Writes the complete output of TICSQServer to a log, and only the lines that matter to the console:
+ * warnings, errors and phase markers. If the analysis fails, the last lines of the output are printed as well.
+ */
+class AnalysisLogSummarizer extends LineTransformationOutputStream {
+    private static final Pattern IMPORTANT_LINE = Pattern.compile("(?i)\\b(warn|warning|error|fatal|exception|failed)\\b");
+    private static final int TAIL_LINES = 100;
+
+    private final OutputStream log;
+    private final OutputStream console;
+    private final Deque<byte[]> tail = new ArrayDeque<>();
+    private long totalBytes;
+    private long consoleBytes;
+
+    AnalysisLogSummarizer(final OutputStream log, final OutputStream console) {
+        this.log = log;
+        this.console = console;
+    }
+
+    @Override
+    protected void eol(final byte[] b, final int len) throws IOException {
+        log.write(b, 0, len);
+        totalBytes += len;
+
+        final String line = new String(b, 0, len, StandardCharsets.UTF_8);
+        if (IMPORTANT_LINE.matcher(line).find() || PhaseTimingParser.isPhaseMarker(line)) {
+            toConsole(b, len);
+            tail.clear();
+        } else {
+            if (tail.size() == TAIL_LINES) {
+                tail.removeFirst();
+            }
+            final byte[] copy = new byte[len];
+            System.arraycopy(b, 0, copy, 0, len);
+            tail.addLast(copy);
+        }
+    }
+
+    private void toConsole(final byte[] b, final int len) throws IOException {
+        console.write(b, 0, len);
+        consoleBytes += len;
+    }
+
+    /** Flushes the log, and prints the last lines of the output that were not printed yet if the analysis failed. The streams are not closed. */
+    void finish(final boolean failed) throws IOException {
+        forceEol();
+        if (failed && !tail.isEmpty()) {
+            final byte[] header = (TicsAnalyzer.LOGGING_PREFIX + "Last lines of the output of TICSQServer:\n").getBytes(StandardCharsets.UTF_8);
+            toConsole(header, header.length);
+            for (final byte[] line : tail) {
+                toConsole(line, line.length);
+            }
+        }
+        tail.clear();
+        log.flush();
+        console.flush();
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    long getConsoleBytes() {
+        return consoleBytes;
+    }
+}
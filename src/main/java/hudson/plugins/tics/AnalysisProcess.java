@@ -0,0 +1,163 @@
+package hudson.plugins.tics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Proc;
+import hudson.model.TaskListener;
+import hudson.plugins.tics.TicsPhaseTimingAction.PhaseTiming;
+import hudson.remoting.VirtualChannel;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * A single run of TICSQServer: launches it, watches it with an {@link AnalysisWatchdog}, times its phases with a {@link PhaseTimingParser},
+ * and optionally writes its complete output to a compressed log through an {@link AnalysisLogSummarizer}.
+ * <p>
+ * A run can be executed from the controller through a launcher, or entirely on the agent through {@link #onAgent(TaskListener, String)},
+ * in which case only the summarized output is sent to the controller.
+ */
+final class AnalysisProcess implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> cmds;
+    private final Map<String, String> envs;
+    private final int timeoutMinutes;
+    private final int noOutputTimeoutMinutes;
+    private final String node;
+
+    AnalysisProcess(final List<String> cmds, final Map<String, String> envs, final int timeoutMinutes, final int noOutputTimeoutMinutes, final String node) {
+        this.cmds = ImmutableList.copyOf(cmds);
+        this.envs = Maps.newLinkedHashMap(envs);
+        this.timeoutMinutes = timeoutMinutes;
+        this.noOutputTimeoutMinutes = noOutputTimeoutMinutes;
+        this.node = node;
+    }
+
+    static final class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final int exitCode;
+        final String killedReason;
+        final List<PhaseTiming> phases;
+        final TicsResourceUsageAction usage;
+        /** Only set if the output was written to a log. */
+        final long totalBytes;
+        final long consoleBytes;
+        /** Time it took to start the process. */
+        final long launchMillis;
+
+        Result(final int exitCode, final String killedReason, final List<PhaseTiming> phases, final TicsResourceUsageAction usage, final long totalBytes, final long consoleBytes,
+                final long launchMillis) {
+            this.exitCode = exitCode;
+            this.killedReason = killedReason;
+            this.phases = ImmutableList.copyOf(phases);
+            this.usage = usage;
+            this.totalBytes = totalBytes;
+            this.consoleBytes = consoleBytes;
+            this.launchMillis = launchMillis;
+        }
+    }
+
+    /**
+     * Runs TICSQServer with the given launcher. Resource usage is sampled through the given channel.
+     * If a log is given, it receives the complete output, and the console only the summary.
+     */
+    Result execute(final Launcher launcher, final VirtualChannel samplingChannel, final TaskListener listener, final OutputStream log) throws IOException, InterruptedException {
+        final AnalysisWatchdog watchdog = new AnalysisWatchdog(timeoutMinutes, noOutputTimeoutMinutes, listener);
+        final Map<String, String> processEnvs = Maps.newLinkedHashMap(envs);
+        processEnvs.put(AnalysisWatchdog.COOKIE_VARIABLE, watchdog.getCookie());
+
+        final AnalysisLogSummarizer summarizer = log == null ? null : new AnalysisLogSummarizer(log, listener.getLogger());
+        final PhaseTimingParser phaseTimingParser = new PhaseTimingParser(summarizer == null ? listener.getLogger() : summarizer);
+        final Launcher.ProcStarter starter = launcher.launch().cmds(cmds).envs(processEnvs).stdout(watchdog.watch(phaseTimingParser));
+
+        final long start = System.currentTimeMillis();
+        final Proc proc = launcher.launch(starter);
+        final long launchMillis = System.currentTimeMillis() - start;
+        final int exitCode = watchdog.join(proc, samplingChannel);
+        final long end = System.currentTimeMillis();
+
+        final List<PhaseTiming> phases = phaseTimingParser.finish(end);
+        if (summarizer != null) {
+            summarizer.finish(exitCode != 0 || watchdog.getKilledReason() != null);
+        }
+        return new Result(exitCode, watchdog.getKilledReason(), phases, watchdog.getUsage(start, end, node),
+                summarizer == null ? 0 : summarizer.getTotalBytes(), summarizer == null ? 0 : summarizer.getConsoleBytes(), launchMillis);
+    }
+
+    /**
+     * Returns the absolute path of the given executable in the given PATH of the agent, or empty if it is not found.
+     * Needed to launch an executable directly, as the operating system looks up executables in the PATH of the agent process,
+     * rather than in the PATH of the build.
+     */
+    static Optional<String> resolveExecutable(final VirtualChannel channel, final String executable, final String path) throws IOException, InterruptedException {
+        return Optional.ofNullable(channel.call(new ResolveExecutable(executable, path)));
+    }
+
+    private static final class ResolveExecutable extends MasterToSlaveCallable<String, IOException> {
+        private static final long serialVersionUID = 1L;
+        private final String executable;
+        private final String path;
+
+        ResolveExecutable(final String executable, final String path) {
+            this.executable = executable;
+            this.path = path;
+        }
+
+        @Override
+        public String call() {
+            final File file = new File(executable);
+            if (file.isAbsolute()) {
+                return file.isFile() ? file.getPath() : null;
+            }
+            for (final String dir : Splitter.on(File.pathSeparator).omitEmptyStrings().split(Strings.nullToEmpty(path))) {
+                final File candidate = new File(dir, executable);
+                if (candidate.isFile() && candidate.canExecute()) {
+                    return candidate.getPath();
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Returns a callable that runs TICSQServer on the agent, writing the complete output to a gzip-compressed log at the given path. */
+    MasterToSlaveCallable<Result, IOException> onAgent(final TaskListener listener, final String logPath) {
+        return new OnAgent(this, listener, logPath);
+    }
+
+    private static final class OnAgent extends MasterToSlaveCallable<Result, IOException> {
+        private static final long serialVersionUID = 1L;
+        private final AnalysisProcess process;
+        private final TaskListener listener;
+        private final String logPath;
+
+        OnAgent(final AnalysisProcess process, final TaskListener listener, final String logPath) {
+            this.process = process;
+            this.listener = listener;
+            this.logPath = logPath;
+        }
+
+        @Override
+        public Result call() throws IOException {
+            try (OutputStream log = new GZIPOutputStream(new FileOutputStream(logPath))) {
+                return process.execute(new Launcher.LocalLauncher(listener), FilePath.localChannel, listener, log);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while running TICSQServer", e);
+            }
+        }
+    }
+}
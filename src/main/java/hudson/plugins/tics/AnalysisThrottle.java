@@ -0,0 +1,207 @@
+package hudson.plugins.tics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+
+/**
+ * Limits the number of concurrent TICS analyses per TICS Viewer and project on this controller, as concurrent analyses
+ * of one project mostly compete for the database of the viewer. Waiting analyses are admitted in order of arrival.
+ * The limit is configured globally, see {@link TicsAnalyzer.DescriptorImpl#getMaxConcurrentAnalyses()}; 0 means no limit.
+ * <p>
+ * A waiting analysis does not need a thread, see {@link #acquireAsync(String, TaskListener)}. The pipeline step {@link TicsRunStep}
+ * waits that way before it takes a thread for the analysis. The Run TICS build step waits within the build, so a waiting
+ * freestyle build keeps its executor.
+ */
+public final class AnalysisThrottle {
+    private static final AnalysisThrottle INSTANCE = new AnalysisThrottle();
+
+    private final Map<String, ThrottleQueue> queues = new ConcurrentHashMap<>();
+
+    /** Running and waiting analyses of one viewer and project. All fields are guarded by the instance. */
+    public static final class ThrottleQueue {
+        private final String key;
+        private final Deque<Ticket> waiting = new ArrayDeque<>();
+        private int running;
+        private long waitCount;
+        private long totalWaitMillis;
+        private long maxWaitMillis;
+
+        private ThrottleQueue(final String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public synchronized int getRunning() {
+            return running;
+        }
+
+        public synchronized int getWaiting() {
+            return waiting.size();
+        }
+
+        public synchronized long getWaitCount() {
+            return waitCount;
+        }
+
+        public synchronized String getAverageWait() {
+            return waitCount == 0 ? "-" : Util.getTimeSpanString(totalWaitMillis / waitCount);
+        }
+
+        public synchronized String getMaxWait() {
+            return waitCount == 0 ? "-" : Util.getTimeSpanString(maxWaitMillis);
+        }
+    }
+
+    /** A waiting analysis. */
+    private static final class Ticket {
+        private final CompletableFuture<Permit> permit = new CompletableFuture<>();
+        private final TaskListener listener;
+        private final long start = System.currentTimeMillis();
+        private boolean logged;
+
+        private Ticket(final TaskListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    /** A slot that is held while an analysis runs. */
+    final class Permit implements AutoCloseable {
+        private final ThrottleQueue queue;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Permit(final ThrottleQueue queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            synchronized (queue) {
+                queue.running--;
+            }
+            admit(queue);
+        }
+    }
+
+    private AnalysisThrottle() {
+    }
+
+    public static AnalysisThrottle get() {
+        return INSTANCE;
+    }
+
+    static String getKey(final String viewer, final String projectName) {
+        return viewer + " " + projectName;
+    }
+
+    /** Waits until fewer than the configured number of analyses of the given key are running. */
+    Permit acquire(final String key, final TaskListener listener) throws InterruptedException {
+        final CompletableFuture<Permit> permit = acquireAsync(key, listener);
+        try {
+            return permit.get();
+        } catch (final InterruptedException e) {
+            if (!permit.cancel(false)) {
+                // Admitted while being interrupted
+                permit.join().close();
+            }
+            throw e;
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns a permit once fewer than the configured number of analyses of the given key are running, without blocking a thread.
+     * Cancelling the returned future gives up the place in the queue. The future is completed by the thread that releases
+     * the previous permit, so callers should not do lengthy work in its callbacks.
+     */
+    CompletableFuture<Permit> acquireAsync(final String key, final TaskListener listener) {
+        final ThrottleQueue queue = queues.computeIfAbsent(key, ThrottleQueue::new);
+        final Ticket ticket = new Ticket(listener);
+        synchronized (queue) {
+            queue.waiting.addLast(ticket);
+        }
+        ticket.permit.whenComplete((permit, e) -> {
+            if (ticket.permit.isCancelled()) {
+                synchronized (queue) {
+                    queue.waiting.remove(ticket);
+                }
+                admit(queue);
+            }
+        });
+        admit(queue);
+        synchronized (queue) {
+            if (queue.waiting.contains(ticket)) {
+                listener.getLogger().println(TicsAnalyzer.LOGGING_PREFIX + "Waiting for " + queue.running + " running and "
+                        + (queue.waiting.size() - 1) + " earlier analyses of the same project, as at most " + getLimit() + " may run at the same time");
+                ticket.logged = true;
+            }
+        }
+        return ticket.permit;
+    }
+
+    /** Admits waiting analyses of every queue, as after the limit was raised. */
+    void admitAll() {
+        queues.values().forEach(this::admit);
+    }
+
+    /** Admits the waiting analyses of the given queue in order of arrival, as far as the limit allows. */
+    private void admit(final ThrottleQueue queue) {
+        final List<Ticket> admitted = new ArrayList<>();
+        synchronized (queue) {
+            while (!queue.waiting.isEmpty() && !isFull(queue)) {
+                final Ticket ticket = queue.waiting.removeFirst();
+                queue.running++;
+                admitted.add(ticket);
+                if (ticket.logged) {
+                    final long waited = System.currentTimeMillis() - ticket.start;
+                    queue.waitCount++;
+                    queue.totalWaitMillis += waited;
+                    queue.maxWaitMillis = Math.max(queue.maxWaitMillis, waited);
+                    ticket.listener.getLogger().println(TicsAnalyzer.LOGGING_PREFIX + "Waited " + Util.getTimeSpanString(waited) + " for other analyses of the same project");
+                }
+            }
+        }
+        // Completed outside of the lock, as the callbacks of the waiting analyses run in this thread
+        for (final Ticket ticket : admitted) {
+            final Permit permit = new Permit(queue);
+            if (!ticket.permit.complete(permit)) {
+                // Cancelled in the meantime
+                permit.close();
+            }
+        }
+    }
+
+    private static boolean isFull(final ThrottleQueue queue) {
+        final int limit = getLimit();
+        return limit > 0 && queue.running >= limit;
+    }
+
+    private static int getLimit() {
+        return TicsAnalyzer.DescriptorImpl.get().getMaxConcurrentAnalyses();
+    }
+
+    /** Referenced by the TICS management page. */
+    public List<ThrottleQueue> getQueues() {
+        return queues.values().stream()
+                .sorted(Comparator.comparing(ThrottleQueue::getKey))
+                .collect(Collectors.toList());
+    }
+}
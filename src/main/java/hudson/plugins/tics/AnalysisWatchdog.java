@@ -0,0 +1,235 @@
+package hudson.plugins.tics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Maps;
+
+import hudson.Proc;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import hudson.util.ProcessTree;
+import hudson.util.ProcessTree.OSProcess;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Waits for TICSQServer to finish, and kills its process tree when it runs longer than the wall-clock timeout,
+ * or does not produce output for longer than the no-output timeout. A timeout of 0 means no timeout.
+ * <p>
+ * While waiting, the CPU time, memory and I/O of the processes of the analysis are sampled on the agent from /proc.
+ * The processes are recognized by the {@link #COOKIE_VARIABLE} in their environment, which is inherited by child processes.
+ * Sampling is only supported on Linux.
+ */
+final class AnalysisWatchdog {
+    static final String COOKIE_VARIABLE = "TICS_ANALYSIS_COOKIE";
+    private static final long POLL_INTERVAL_MS = 1000;
+    private static final long SAMPLE_INTERVAL_MS = 15000;
+
+    private final long timeoutMillis;
+    private final long noOutputTimeoutMillis;
+    private final PrintStream logger;
+    private final String cookie = UUID.randomUUID().toString();
+    private volatile long lastOutputMillis = System.currentTimeMillis();
+
+    /** Resource usage per process id, as last sampled. Processes that exited keep their last sample. */
+    private final Map<Integer, ProcessUsage> usagePerProcess = Maps.newHashMap();
+    private long peakRssBytes;
+    private int sampleCount;
+    private String killedReason;
+
+    AnalysisWatchdog(final int timeoutMinutes, final int noOutputTimeoutMinutes, final TaskListener listener) {
+        this(TimeUnit.MINUTES.toMillis(Math.max(0, timeoutMinutes)), TimeUnit.MINUTES.toMillis(Math.max(0, noOutputTimeoutMinutes)), listener);
+    }
+
+    /** Timeouts in milliseconds, for tests. */
+    AnalysisWatchdog(final long timeoutMillis, final long noOutputTimeoutMillis, final TaskListener listener) {
+        this.timeoutMillis = timeoutMillis;
+        this.noOutputTimeoutMillis = noOutputTimeoutMillis;
+        this.logger = listener.getLogger();
+    }
+
+    String getCookie() {
+        return cookie;
+    }
+
+    /** Returns a stream that passes everything to the given stream, and records when the analysis last produced output. */
+    OutputStream watch(final OutputStream out) {
+        return new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                lastOutputMillis = System.currentTimeMillis();
+                out.write(b);
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                lastOutputMillis = System.currentTimeMillis();
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+            }
+        };
+    }
+
+    /**
+     * Waits for the process to finish, and returns its exit code.
+     * Resource usage is sampled through the given channel to the agent, which may be {@link hudson.FilePath#localChannel} when running on the agent itself.
+     */
+    int join(final Proc proc, final VirtualChannel channel) throws IOException, InterruptedException {
+        final long start = System.currentTimeMillis();
+        long nextSample = start;
+        boolean sampling = channel != null;
+        while (proc.isAlive()) {
+            final long now = System.currentTimeMillis();
+            if (sampling && now >= nextSample) {
+                sampling = sample(channel);
+                nextSample = now + SAMPLE_INTERVAL_MS;
+            }
+            if (timeoutMillis > 0 && now - start > timeoutMillis) {
+                kill(proc, "TICSQServer did not finish within " + TimeUnit.MILLISECONDS.toMinutes(timeoutMillis) + " minutes");
+                break;
+            }
+            if (noOutputTimeoutMillis > 0 && now - lastOutputMillis > noOutputTimeoutMillis) {
+                kill(proc, "TICSQServer did not produce output for " + TimeUnit.MILLISECONDS.toMinutes(noOutputTimeoutMillis) + " minutes");
+                break;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (final InterruptedException e) {
+                // The build was aborted
+                proc.kill();
+                throw e;
+            }
+        }
+        return proc.join();
+    }
+
+    private void kill(final Proc proc, final String reason) throws IOException, InterruptedException {
+        killedReason = reason;
+        logger.println(TicsAnalyzer.LOGGING_PREFIX + reason + ". Killing the analysis.");
+        proc.kill();
+    }
+
+    /** Returns false if sampling is not supported on the agent. */
+    private boolean sample(final VirtualChannel channel) throws InterruptedException {
+        final Map<Integer, ProcessUsage> sample;
+        try {
+            sample = channel.call(new Sample(cookie));
+        } catch (final IOException e) {
+            logger.println(TicsAnalyzer.LOGGING_PREFIX + "Could not sample the resource usage of the analysis: " + e.getMessage());
+            return false;
+        }
+        if (sample == null) {
+            return false;
+        }
+        sampleCount++;
+        usagePerProcess.putAll(sample);
+        peakRssBytes = Math.max(peakRssBytes, sample.values().stream().mapToLong(u -> u.rssBytes).sum());
+        return true;
+    }
+
+    String getKilledReason() {
+        return killedReason;
+    }
+
+    /** Returns the resource usage of the analysis, or null if it was not sampled. */
+    TicsResourceUsageAction getUsage(final long startMillis, final long endMillis, final String node) {
+        if (sampleCount == 0) {
+            return null;
+        }
+        final long cpuMillis = usagePerProcess.values().stream().mapToLong(u -> u.cpuMillis).sum();
+        final long readBytes = usagePerProcess.values().stream().mapToLong(u -> u.readBytes).sum();
+        final long writeBytes = usagePerProcess.values().stream().mapToLong(u -> u.writeBytes).sum();
+        return new TicsResourceUsageAction(node, endMillis - startMillis, cpuMillis, peakRssBytes, readBytes, writeBytes,
+                usagePerProcess.size(), sampleCount, killedReason);
+    }
+
+    static final class ProcessUsage implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final long cpuMillis;
+        final long rssBytes;
+        final long readBytes;
+        final long writeBytes;
+
+        ProcessUsage(final long cpuMillis, final long rssBytes, final long readBytes, final long writeBytes) {
+            this.cpuMillis = cpuMillis;
+            this.rssBytes = rssBytes;
+            this.readBytes = readBytes;
+            this.writeBytes = writeBytes;
+        }
+    }
+
+    /** Samples the processes with the cookie on the agent. Returns null if /proc is not available. */
+    private static final class Sample extends MasterToSlaveCallable<Map<Integer, ProcessUsage>, IOException> {
+        private static final long serialVersionUID = 1L;
+        /** USER_HZ, the unit of the CPU times in /proc/[pid]/stat, is 100 on all common Linux platforms. */
+        private static final long CLOCK_TICKS_PER_SECOND = 100;
+        private final String cookie;
+
+        Sample(final String cookie) {
+            this.cookie = cookie;
+        }
+
+        @Override
+        public Map<Integer, ProcessUsage> call() throws IOException {
+            if (!new File("/proc/self/stat").isFile()) {
+                return null;
+            }
+            final Map<Integer, ProcessUsage> out = Maps.newHashMap();
+            for (final OSProcess p : ProcessTree.get()) {
+                if (!cookie.equals(p.getEnvironmentVariables().get(COOKIE_VARIABLE))) {
+                    continue;
+                }
+                final File dir = new File("/proc", Integer.toString(p.getPid()));
+                try {
+                    out.put(p.getPid(), new ProcessUsage(readCpuMillis(dir), readRssBytes(dir), readIo(dir, "read_bytes"), readIo(dir, "write_bytes")));
+                } catch (final IOException | RuntimeException e) {
+                    // The process exited while sampling
+                }
+            }
+            return out;
+        }
+
+        private static long readCpuMillis(final File dir) throws IOException {
+            final String stat = new String(Files.readAllBytes(new File(dir, "stat").toPath()), StandardCharsets.UTF_8);
+            // The command name may contain spaces, so fields are counted from its closing parenthesis; utime and stime are fields 14 and 15
+            final String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+            final long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+            return ticks * 1000 / CLOCK_TICKS_PER_SECOND;
+        }
+
+        private static long readRssBytes(final File dir) throws IOException {
+            for (final String line : Files.readAllLines(new File(dir, "status").toPath(), StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+            return 0;
+        }
+
+        /** /proc/[pid]/io is only readable for processes of the same user, and may be missing in containers. */
+        private static long readIo(final File dir, final String field) {
+            try {
+                for (final String line : Files.readAllLines(new File(dir, "io").toPath(), StandardCharsets.UTF_8)) {
+                    if (line.startsWith(field + ":")) {
+                        return Long.parseLong(line.substring(field.length() + 1).trim());
+                    }
+                }
+            } catch (final IOException e) {
+                // Not available
+            }
+            return 0;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.jenkinsci.plugins.plaincredentials.StringCredentials;
@@ -15,6 +17,7 @@ import org.kohsuke.stapler.QueryParameter;
 import com.cloudbees.plugins.credentials.CredentialsMatcher;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardCredentials;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
@@ -23,14 +26,22 @@ import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import hudson.EnvVars;
+import hudson.Extension;
 import hudson.Util;
+import hudson.XmlFile;
 import hudson.model.Item;
+import hudson.model.ItemGroup;
 import hudson.model.Job;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
 import hudson.security.ACL;
 import hudson.util.ListBoxModel;
 import hudson.util.Secret;
@@ -41,6 +52,16 @@ public final class AuthHelper {
 
     public static final String TICSAUTHTOKEN = "TICSAUTHTOKEN";
 
+    /**
+     * Credentials visible to a job, indexed by id. Keyed on credentials type and the full name of the job.
+     * The index is dropped by {@link CredentialsIndexInvalidator} whenever a credentials store is saved.
+     * Stores that do not notify Jenkins on change (e.g. external providers) are picked up after the expiry time.
+     */
+    private static final Cache<String, ImmutableMap<String, StandardCredentials>> CREDENTIALS_INDEX = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+
     /**
      * Find credentials by id using the Credentials plugin.
      */
@@ -48,15 +69,94 @@ public final class AuthHelper {
         if (Strings.isNullOrEmpty(credentialsId)) {
             return Optional.empty();
         }
-        final List<DomainRequirement> domainRequirements = Collections.<DomainRequirement>emptyList();
-        final List<T> list = CredentialsProvider.lookupCredentials(clazz, job, ACL.SYSTEM, domainRequirements);
+        final StandardCredentials c = getCredentialsIndex(clazz, job).get(credentialsId);
+        return clazz.isInstance(c) ? Optional.of(clazz.cast(c)) : Optional.empty();
+    }
+
+    private static <T extends StandardCredentials> ImmutableMap<String, StandardCredentials> getCredentialsIndex(final Class<T> clazz, final Job<?, ?> job) {
+        final String key = clazz.getName() + "@" + (job == null ? "" : job.getFullName());
+        try {
+            return CREDENTIALS_INDEX.get(key, () -> {
+                final List<DomainRequirement> domainRequirements = Collections.<DomainRequirement>emptyList();
+                final List<T> list = CredentialsProvider.lookupCredentials(clazz, job, ACL.SYSTEM, domainRequirements);
+                final Map<String, StandardCredentials> byId = Maps.newLinkedHashMap();
+                for (final T c : list) {
+                    // Keep the first match, as the linear lookup did before
+                    byId.putIfAbsent(c.getId(), c);
+                }
+                return ImmutableMap.copyOf(byId);
+            });
+        } catch (final ExecutionException ex) {
+            throw new IllegalStateException("Could not look up credentials", ex.getCause());
+        }
+    }
 
-        for (final T c : list) {
-            if (credentialsId.equals(c.getId())) {
-                return Optional.of(c);
+    /**
+     * Username/password credentials of the Jenkins root store, indexed by id and by username.
+     * Expires and is dropped together with {@link #CREDENTIALS_INDEX}.
+     */
+    private static final Cache<String, RootUsernamePasswordIndex> ROOT_USERNAME_PASSWORD_INDEX = CacheBuilder.newBuilder()
+            .maximumSize(1)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+    private static final String ROOT_INDEX_KEY = "root";
+
+    private static final class RootUsernamePasswordIndex {
+        private final ImmutableMap<String, String> idById;
+        private final ImmutableMap<String, String> idByUsername;
+
+        private RootUsernamePasswordIndex(final List<StandardUsernamePasswordCredentials> credentialsList) {
+            final Map<String, String> byId = Maps.newLinkedHashMap();
+            final Map<String, String> byUsername = Maps.newLinkedHashMap();
+            for (final StandardUsernamePasswordCredentials c : credentialsList) {
+                byId.putIfAbsent(c.getId(), c.getId());
+                byUsername.putIfAbsent(c.getUsername(), c.getId());
+            }
+            this.idById = ImmutableMap.copyOf(byId);
+            this.idByUsername = ImmutableMap.copyOf(byUsername);
+        }
+    }
+
+    private static RootUsernamePasswordIndex getRootUsernamePasswordIndex() {
+        try {
+            return ROOT_USERNAME_PASSWORD_INDEX.get(ROOT_INDEX_KEY, () -> new RootUsernamePasswordIndex(CredentialsProvider.
+                    lookupCredentials(
+                            StandardUsernamePasswordCredentials.class,
+                            Jenkins.getInstanceOrNull(),
+                            null,
+                            (DomainRequirement) null)));
+        } catch (final ExecutionException ex) {
+            throw new IllegalStateException("Could not look up credentials", ex.getCause());
+        }
+    }
+
+    /** Returns the id of the username/password credentials in the Jenkins root store that have the given id. */
+    public static Optional<String> findRootUsernamePasswordCredentialsIdById(final String id) {
+        return Optional.ofNullable(getRootUsernamePasswordIndex().idById.get(id));
+    }
+
+    /** Returns the id of the first username/password credentials in the Jenkins root store that have the given username. */
+    public static Optional<String> findRootUsernamePasswordCredentialsIdByUsername(final String username) {
+        return Optional.ofNullable(getRootUsernamePasswordIndex().idByUsername.get(username));
+    }
+
+    static void invalidateCredentialsIndex() {
+        CREDENTIALS_INDEX.invalidateAll();
+        ROOT_USERNAME_PASSWORD_INDEX.invalidateAll();
+    }
+
+    /**
+     * Drops the credentials index when a credentials store is saved.
+     * Global credentials are stored by {@link SystemCredentialsProvider}; folder credentials are stored as part of the folder.
+     */
+    @Extension
+    public static class CredentialsIndexInvalidator extends SaveableListener {
+        @Override
+        public void onChange(final Saveable o, final XmlFile file) {
+            if (o instanceof SystemCredentialsProvider || o instanceof ItemGroup) {
+                invalidateCredentialsIndex();
             }
         }
-        return Optional.empty();
     }
 
     public static Optional<Pair<String, String>> lookupUsernameAndPasswordFromCredentialsId(final Job<?, ?> job, final String credentialsId, final EnvVars buildEnv) {
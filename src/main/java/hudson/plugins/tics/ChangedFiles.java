@@ -0,0 +1,142 @@
+package hudson.plugins.tics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.scm.ChangeLogSet;
+import hudson.scm.EditType;
+import jenkins.scm.RunWithSCM;
+
+/**
+ * Collects the files that changed in a build, for an incremental analysis by {@link TicsAnalyzer},
+ * and partitions files into shards, for a sharded analysis.
+ * Paths are relative to the root of the repository, which is assumed to be the workspace.
+ */
+final class ChangedFiles {
+    /** Used if no maximum is configured. Beyond this, a full analysis is usually not much slower. */
+    static final int DEFAULT_MAX_FILES = 500;
+
+    private ChangedFiles() {
+    }
+
+    /**
+     * Returns the changed files of the given run, and the files that differ between the given git base and HEAD.
+     * Returns empty if the changed files are unknown, e.g. for the first build of a job, or if git fails.
+     */
+    static Optional<Set<String>> collect(final Run<?, ?> run, final String gitBase, final FilePath workspace, final Launcher launcher,
+            final EnvVars buildEnv, final TaskListener listener) throws IOException, InterruptedException {
+        final Set<String> out = Sets.newTreeSet();
+        out.addAll(fromChangeSets(run));
+        if (!Strings.isNullOrEmpty(gitBase)) {
+            final Optional<Set<String>> diff = fromGitDiff(gitBase, workspace, launcher, buildEnv, listener);
+            if (!diff.isPresent()) {
+                return Optional.empty();
+            }
+            out.addAll(diff.get());
+        }
+        return out.isEmpty() ? Optional.empty() : Optional.of(out);
+    }
+
+    /** Returns the files that were added or modified according to the change logs of the run. */
+    static Set<String> fromChangeSets(final Run<?, ?> run) {
+        if (!(run instanceof RunWithSCM)) {
+            return ImmutableSet.of();
+        }
+        final Set<String> out = Sets.newTreeSet();
+        for (final ChangeLogSet<? extends ChangeLogSet.Entry> changeSet : ((RunWithSCM<?, ?>) run).getChangeSets()) {
+            for (final ChangeLogSet.Entry entry : changeSet) {
+                for (final ChangeLogSet.AffectedFile file : entry.getAffectedFiles()) {
+                    if (file.getEditType() != EditType.DELETE) {
+                        out.add(file.getPath());
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /** Runs <code>git diff --name-only base...HEAD</code> in the workspace, skipping deleted files. */
+    private static Optional<Set<String>> fromGitDiff(final String gitBase, final FilePath workspace, final Launcher launcher,
+            final EnvVars buildEnv, final TaskListener listener) throws IOException, InterruptedException {
+        final Optional<Set<String>> out = git(workspace, launcher, buildEnv, listener, "diff", "--name-only", "--diff-filter=d", gitBase + "...HEAD");
+        if (!out.isPresent()) {
+            listener.getLogger().println(TicsAnalyzer.LOGGING_PREFIX + "Could not determine the files that differ from " + gitBase);
+        }
+        return out;
+    }
+
+    /** Returns the files in the workspace that are tracked by git, or empty if git fails. */
+    static Optional<Set<String>> trackedFiles(final FilePath workspace, final Launcher launcher, final EnvVars buildEnv, final TaskListener listener) throws IOException, InterruptedException {
+        return git(workspace, launcher, buildEnv, listener, "ls-files");
+    }
+
+    /** Runs git in the workspace and returns the lines it printed. */
+    private static Optional<Set<String>> git(final FilePath workspace, final Launcher launcher, final EnvVars buildEnv, final TaskListener listener, final String... args) throws IOException, InterruptedException {
+        final PrintStream logger = listener.getLogger();
+        final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        final int exitCode = launcher.launch()
+                .cmds(Lists.asList("git", args))
+                .envs(buildEnv)
+                .pwd(workspace)
+                .stdout(stdout)
+                .stderr(logger)
+                .quiet(true)
+                .join();
+        if (exitCode != 0) {
+            logger.println(TicsAnalyzer.LOGGING_PREFIX + "git " + args[0] + " exited with code " + exitCode);
+            return Optional.empty();
+        }
+        final String output = new String(stdout.toByteArray(), StandardCharsets.UTF_8);
+        return Optional.of(Sets.newTreeSet(Splitter.onPattern("\r?\n").trimResults().omitEmptyStrings().split(output)));
+    }
+
+    /**
+     * Returns the files that belong to the given shard. The files are sorted by path and split into contiguous ranges
+     * of equal size, so that every shard gets the same number of files, while files of the same directory mostly end up
+     * in the same shard. All shards of a build see the same files, and so split them the same way.
+     */
+    static Set<String> selectShard(final Set<String> files, final int shardCount, final int shardIndex) {
+        final List<String> sorted = files.stream()
+                .sorted(Comparator.comparing(file -> file.replace('\\', '/')))
+                .collect(Collectors.toList());
+        final int from = (int) ((long) sorted.size() * shardIndex / shardCount);
+        final int to = (int) ((long) sorted.size() * (shardIndex + 1) / shardCount);
+        return Sets.newTreeSet(sorted.subList(from, to));
+    }
+
+    /**
+     * Writes the given files as absolute paths to a file list in the workspace, one per line, as expected by
+     * the -filelist option of TICSQServer.
+     */
+    static FilePath writeFileList(final Set<String> files, final FilePath workspace) throws IOException, InterruptedException {
+        final FilePath fileList = workspace.createTempFile("tics-filelist", ".txt");
+        final StringBuilder sb = new StringBuilder();
+        for (final String file : files) {
+            sb.append(workspace.child(file).getRemote()).append('\n');
+        }
+        fileList.write(sb.toString(), "UTF-8");
+        return fileList;
+    }
+
+    static String describe(final Set<String> files) {
+        return files.size() == 1 ? "1 changed file" : files.size() + " changed files";
+    }
+}
@@ -1,6 +1,7 @@
 package hudson.plugins.tics;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -41,6 +42,20 @@ public class InstallTicsApiCall extends AbstractApiCall {
         return resp.links.installTics;
     }
 
+    /** Downloads the install script that {@link #retrieveInstallTics()} refers to. */
+    public byte[] downloadInstallScript(final String installScriptUrl) {
+        final HttpGet httpGet = new HttpGet(installScriptUrl);
+        try (final CloseableHttpClient httpclient = this.createHttpClient();
+                final CloseableHttpResponse response = httpclient.execute(httpGet);) {
+            final byte[] body = EntityUtils.toByteArray(response.getEntity());
+
+            this.throwIfStatusNotOk(response, new String(body, StandardCharsets.UTF_8));
+            return body;
+        } catch (KeyManagementException | NoSuchAlgorithmException | KeyStoreException | IOException | MeasureApiCallException ex) {
+            throw new RuntimeException("Error while downloading install script from " + installScriptUrl, ex);
+        }
+    }
+
     private String performHttpRequest(final String url) {
         final HttpGet httpGet = new HttpGet(url);
         try (final CloseableHttpClient httpclient = this.createHttpClient();
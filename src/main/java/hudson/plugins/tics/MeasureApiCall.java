@@ -22,6 +22,7 @@ import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
 
 import hudson.plugins.tics.MeasureApiSuccessResponse.Baseline;
+import hudson.plugins.tics.MeasureApiSuccessResponse.MetricValue;
 import hudson.plugins.tics.MeasureApiSuccessResponse.Run;
 import hudson.plugins.tics.MeasureApiSuccessResponse.TqiVersion;
 
@@ -57,10 +58,27 @@ public class MeasureApiCall extends AbstractApiCall {
     }
 
     public <T> T execute(final TypeToken<T> typeToken, final String paths, final String metrics) throws MeasureApiCallException {
+        return query(typeToken, convertToPathSyntax(paths), metrics);
+    }
+
+    /**
+     * Retrieves a single metric for several paths in one request. Returns one value per path, in the order of the given paths,
+     * as the Measure API returns the values in the order of the requested nodes.
+     */
+    public <T> List<MetricValue<T>> executeBatch(final TypeToken<MeasureApiSuccessResponse<T>> typeToken, final List<String> paths, final String metric) throws MeasureApiCallException {
+        final String nodes = paths.stream().map(this::convertToPathSyntax).collect(Collectors.joining(","));
+        final MeasureApiSuccessResponse<T> resp = query(typeToken, nodes, metric);
+        if (resp.data.size() != paths.size()) {
+            throw new MeasureApiCallException("Expected " + paths.size() + " values for metric " + metric + ", but got " + resp.data.size());
+        }
+        return resp.data;
+    }
+
+    private <T> T query(final TypeToken<T> typeToken, final String nodes, final String metrics) throws MeasureApiCallException {
         URIBuilder builder;
         try {
             builder = new URIBuilder(this.measureApiUrl)
-                .setParameter("nodes", convertToPathSyntax(paths))
+                .setParameter("nodes", nodes)
                 .setParameter("metrics", metrics);
         } catch (final URISyntaxException e) {
             throw new MeasureApiCallException("Invalid URL: " + e.getMessage());
@@ -79,7 +97,7 @@ public class MeasureApiCall extends AbstractApiCall {
         logger.println(TicsPublisher.LOGGING_PREFIX + httpGet.toString());
 
         final String body;
-        try (CloseableHttpClient httpclient = this.createHttpClient();
+        try (CloseableHttpClient httpclient = this.openHttpClient();
                 CloseableHttpResponse response = httpclient.execute(httpGet);
                 ) {
                 body = EntityUtils.toString(response.getEntity());
@@ -99,7 +117,7 @@ public class MeasureApiCall extends AbstractApiCall {
         }
     }
 
-    private String convertToPathSyntax(final String ticsPath) {
+    String convertToPathSyntax(final String ticsPath) {
         final List<String> ticsPathParts = Lists.newArrayList(Splitter.on("://").split(ticsPath));
 
         if (ticsPathParts.size() < 2 ) {
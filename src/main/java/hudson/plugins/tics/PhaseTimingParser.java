@@ -0,0 +1,86 @@
+package hudson.plugins.tics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+import hudson.console.LineTransformationOutputStream;
+import hudson.plugins.tics.TicsPhaseTimingAction.PhaseTiming;
+
+/**
+ * Passes the output of TICSQServer through, and records when each phase starts and ends.
+ * A phase starts at a line that announces a phase or metric, e.g. "Calculating CODINGSTANDARD" or "Phase: FINALIZE",
+ * and ends when the next phase starts or the output ends.
+ */
+class PhaseTimingParser extends LineTransformationOutputStream {
+    private static final Pattern PHASE_MARKER = Pattern.compile("\\b(?i:phase|metric|calculating|computing|running|starting|start)\\b\\W+(?:(?i:phase|metric)\\W+)?([A-Z][A-Z_]+)\\b");
+    private static final Set<String> PHASES = ImmutableSet.<String>builder()
+            .addAll(TicsPipelineRun.ALL_METRICS)
+            .add("BEGIN")
+            .build();
+
+    private final OutputStream out;
+    private final List<PhaseTiming> phases = Lists.newArrayList();
+    private String currentPhase;
+    private long currentPhaseStartMillis;
+
+    PhaseTimingParser(final OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    protected void eol(final byte[] b, final int len) throws IOException {
+        out.write(b, 0, len);
+        parseLine(new String(b, 0, len, StandardCharsets.UTF_8), System.currentTimeMillis());
+    }
+
+    void parseLine(final String line, final long nowMillis) {
+        final String phase = getPhase(line);
+        if (phase != null && !phase.equals(currentPhase)) {
+            endCurrentPhase(nowMillis);
+            currentPhase = phase;
+            currentPhaseStartMillis = nowMillis;
+        }
+    }
+
+    static boolean isPhaseMarker(final String line) {
+        return getPhase(line) != null;
+    }
+
+    /** Returns the phase that the given line announces, or null. */
+    private static String getPhase(final String line) {
+        final Matcher matcher = PHASE_MARKER.matcher(line);
+        while (matcher.find()) {
+            if (PHASES.contains(matcher.group(1))) {
+                return matcher.group(1);
+            }
+        }
+        return null;
+    }
+
+    private void endCurrentPhase(final long nowMillis) {
+        if (currentPhase != null) {
+            phases.add(new PhaseTiming(currentPhase, currentPhaseStartMillis, nowMillis));
+            currentPhase = null;
+        }
+    }
+
+    /** Ends the current phase and returns the phases in order of occurrence. The given stream is not closed. */
+    List<PhaseTiming> finish(final long nowMillis) throws IOException {
+        forceEol();
+        endCurrentPhase(nowMillis);
+        return phases;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
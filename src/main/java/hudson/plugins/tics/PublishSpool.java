@@ -0,0 +1,241 @@
+package hudson.plugins.tics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.joda.time.Instant;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.XmlFile;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.tics.ViewerHealthMonitor.ViewerHealth;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.LogTaskListener;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+
+/**
+ * Keeps the publications of builds that could not reach their TICS Viewer, see {@link TicsPublisher#setSpoolWhenViewerUnavailable(boolean)},
+ * and publishes them once the viewer is reachable again. The {@link TicsPublisherBuildAction} is then added to the build after the fact.
+ * The result of the build is not changed anymore at that point, also not if the quality gate failed.
+ * <p>
+ * Each publication is stored in its own file in JENKINS_HOME/tics-publish-spool, so that it survives a restart.
+ * Publications are dropped when their build was deleted, or when they could not be published for a week.
+ */
+@Extension
+public class PublishSpool extends AsyncPeriodicWork {
+    private static final Logger LOGGER = Logger.getLogger(PublishSpool.class.getName());
+    private static final String LOGGING_PREFIX = "[TICS Publish Spool] ";
+    private static final long RECURRENCE_PERIOD_MS = Long.getLong(PublishSpool.class.getName() + ".recurrencePeriod", TimeUnit.MINUTES.toMillis(1));
+    private static final int MAX_CONCURRENT_REPLAYS = Integer.getInteger(PublishSpool.class.getName() + ".maxConcurrentReplays", 4);
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(7);
+
+    /** Spooled publications by id. Null until loaded from disk. Guarded by the instance. */
+    private Map<String, Entry> entries;
+
+    /** A publication that is waiting for its viewer. */
+    public static final class Entry {
+        private final String id;
+        private final String runId;
+        private final String viewerUrl;
+        private final String tiobeWebBaseUrl;
+        private final String ticsPath;
+        private final String credentialsId;
+        private final boolean checkQualityGate;
+        private final long spooledAtMillis;
+        private int attempts;
+        private String lastError;
+
+        Entry(final String runId, final String viewerUrl, final String tiobeWebBaseUrl, final String ticsPath, final String credentialsId, final boolean checkQualityGate) {
+            this.id = UUID.randomUUID().toString();
+            this.runId = runId;
+            this.viewerUrl = viewerUrl;
+            this.tiobeWebBaseUrl = tiobeWebBaseUrl;
+            this.ticsPath = ticsPath;
+            this.credentialsId = credentialsId;
+            this.checkQualityGate = checkQualityGate;
+            this.spooledAtMillis = System.currentTimeMillis();
+        }
+
+        /** The externalizable id of the build, e.g. <code>folder/job#12</code>. */
+        public String getRunId() {
+            return runId;
+        }
+
+        public String getTiobeWebBaseUrl() {
+            return tiobeWebBaseUrl;
+        }
+
+        public String getTicsPath() {
+            return ticsPath;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        public String getSpooledAt() {
+            return new Instant(spooledAtMillis).toDateTime().toString("YYYY-MM-dd HH:mm:ss");
+        }
+    }
+
+    public PublishSpool() {
+        super("TICS publish spool");
+    }
+
+    public static PublishSpool get() {
+        return ExtensionList.lookupSingleton(PublishSpool.class);
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return RECURRENCE_PERIOD_MS;
+    }
+
+    /** Stores a publication of the given build, to be published once the viewer is reachable again. */
+    void add(final Run<?, ?> run, final TicsPublisher publisher, final String tiobeWebBaseUrl, final String ticsPath) throws IOException {
+        final Entry entry = new Entry(run.getExternalizableId(), publisher.getViewerUrl(), tiobeWebBaseUrl, ticsPath, publisher.getCredentialsId(), publisher.getCheckQualityGate());
+        synchronized (this) {
+            Files.createDirectories(getDirectory().toPath());
+            getFile(entry.id).write(entry);
+            load().put(entry.id, entry);
+        }
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return load().values().stream()
+                .sorted(Comparator.comparingLong(e -> e.spooledAtMillis))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    protected void execute(final TaskListener listener) throws IOException, InterruptedException {
+        final List<Entry> pending = getEntries();
+        if (pending.isEmpty()) {
+            return;
+        }
+        final Map<String, Boolean> reachable = new HashMap<>();
+        final List<Callable<Void>> replays = new ArrayList<>();
+        for (final Entry entry : pending) {
+            if (System.currentTimeMillis() - entry.spooledAtMillis > MAX_AGE_MS) {
+                listener.getLogger().println(LOGGING_PREFIX + "Dropping the publication of " + entry.runId + " for " + entry.ticsPath + ", as it was spooled a week ago");
+                remove(entry);
+            } else if (reachable.computeIfAbsent(entry.tiobeWebBaseUrl, PublishSpool::isReachable)) {
+                replays.add(() -> {
+                    replay(entry, listener);
+                    return null;
+                });
+            }
+        }
+        if (replays.isEmpty()) {
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(replays.size(), MAX_CONCURRENT_REPLAYS), new NamingThreadFactory(new DaemonThreadFactory(), "TICS publish spool"));
+        try {
+            executor.invokeAll(replays);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns whether the viewer is reachable according to the {@link ViewerHealthMonitor}. A viewer that was not probed recently
+     * is registered, so that the monitor probes it, and its publications are skipped until the next round.
+     */
+    private static boolean isReachable(final String tiobeWebBaseUrl) {
+        final Optional<ViewerHealth> health = ViewerHealthMonitor.get().getFreshHealth(tiobeWebBaseUrl);
+        if (!health.isPresent()) {
+            ViewerHealthMonitor.get().registerViewer(tiobeWebBaseUrl);
+            return false;
+        }
+        return health.get().reachable;
+    }
+
+    private void replay(final Entry entry, final TaskListener listener) throws IOException, InterruptedException {
+        try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+            final Run<?, ?> run = Run.fromExternalizableId(entry.runId);
+            if (run == null) {
+                listener.getLogger().println(LOGGING_PREFIX + "Dropping the publication of " + entry.runId + ", as the build no longer exists");
+                remove(entry);
+                return;
+            }
+            final TicsPublisher publisher = new TicsPublisher(entry.viewerUrl, entry.ticsPath, entry.credentialsId, entry.checkQualityGate, false);
+            final TicsPublisherBuildAction action = publisher.prepare(run, new LogTaskListener(LOGGER, Level.FINE)).retrieve(run);
+            final String error = action.tqiData != null && action.tqiData.errorMessage != null ? action.tqiData.errorMessage
+                    : action.gateData != null && action.gateData.errorMessage != null ? action.gateData.errorMessage
+                    : null;
+            if (error != null && entry.attempts + 1 < MAX_ATTEMPTS) {
+                synchronized (this) {
+                    entry.attempts++;
+                    entry.lastError = error;
+                    getFile(entry.id).write(entry);
+                }
+                listener.getLogger().println(LOGGING_PREFIX + "Publishing " + entry.ticsPath + " for " + entry.runId + " failed, will retry: " + error);
+                return;
+            }
+            run.addAction(action);
+            run.save();
+            remove(entry);
+            listener.getLogger().println(LOGGING_PREFIX + "Published " + entry.ticsPath + " for " + entry.runId);
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not publish " + entry.ticsPath + " for " + entry.runId, e);
+            throw e;
+        }
+    }
+
+    private synchronized void remove(final Entry entry) {
+        load().remove(entry.id);
+        if (!getFile(entry.id).getFile().delete()) {
+            LOGGER.log(Level.WARNING, "Could not delete " + getFile(entry.id));
+        }
+    }
+
+    private static File getDirectory() {
+        return new File(Jenkins.get().getRootDir(), "tics-publish-spool");
+    }
+
+    private static XmlFile getFile(final String id) {
+        return new XmlFile(Jenkins.XSTREAM2, new File(getDirectory(), id + ".xml"));
+    }
+
+    private Map<String, Entry> load() {
+        if (entries == null) {
+            entries = new HashMap<>();
+            final File[] files = getDirectory().listFiles((dir, name) -> name.endsWith(".xml"));
+            for (final File file : files == null ? new File[0] : files) {
+                try {
+                    final Entry entry = (Entry) new XmlFile(Jenkins.XSTREAM2, file).read();
+                    entries.put(entry.id, entry);
+                } catch (final IOException | ClassCastException e) {
+                    LOGGER.log(Level.WARNING, "Could not load the spooled TICS publication " + file, e);
+                }
+            }
+        }
+        return entries;
+    }
+}
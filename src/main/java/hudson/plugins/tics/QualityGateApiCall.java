@@ -55,7 +55,7 @@ public class QualityGateApiCall extends AbstractApiCall {
 
     private String performHttpRequest(final String url) {
         final HttpGet httpGet = new HttpGet(url);
-        try (final CloseableHttpClient httpclient = this.createHttpClient();
+        try (final CloseableHttpClient httpclient = this.openHttpClient();
              final CloseableHttpResponse response = httpclient.execute(httpGet);
         ) {
             final String body = EntityUtils.toString(response.getEntity());
@@ -13,7 +13,7 @@ public class QualityGateData {
     public final @Nullable String project;
     public final @Nullable String branch;
     public final @Nullable QualityGateApiResponse apiResponse;
-    public final String measurementDate = Instant.now().toString();
+    public final String measurementDate;
     public final @Nullable String errorMessage;
     /** True when ApiCall was successful and project passed quality gate. */
     public final boolean passed;
@@ -24,9 +24,20 @@ public class QualityGateData {
             final @Nullable QualityGateApiResponse apiResponse,
             final @Nullable String errorMessage
             ) {
+        this(project, branch, apiResponse, Instant.now().toString(), errorMessage);
+    }
+
+    private QualityGateData(
+            final @Nullable String project,
+            final @Nullable String branch,
+            final @Nullable QualityGateApiResponse apiResponse,
+            final String measurementDate,
+            final @Nullable String errorMessage
+            ) {
         this.project = project;
         this.branch = branch;
         this.apiResponse = apiResponse;
+        this.measurementDate = measurementDate;
         this.errorMessage = errorMessage;
         this.passed = Optional.ofNullable(apiResponse).map(resp -> resp.passed).orElse(false);
     }
@@ -39,4 +50,25 @@ public class QualityGateData {
         return new QualityGateData(project, branch, apiResponse, null);
     }
 
+    /**
+     * Returns a copy without the conditions of the gates, for when they are summarized by a {@link QualityGateDiff},
+     * so that they are not stored in build.xml.
+     */
+    QualityGateData withoutConditions() {
+        if (apiResponse == null) {
+            return this;
+        }
+        final QualityGateApiResponse trimmed = new QualityGateApiResponse();
+        trimmed.passed = apiResponse.passed;
+        trimmed.message = apiResponse.message;
+        trimmed.url = apiResponse.url;
+        for (final QualityGateApiResponse.Gate gate : apiResponse.gates) {
+            final QualityGateApiResponse.Gate trimmedGate = new QualityGateApiResponse.Gate();
+            trimmedGate.passed = gate.passed;
+            trimmedGate.name = gate.name;
+            trimmed.gates.add(trimmedGate);
+        }
+        return new QualityGateData(project, branch, trimmed, measurementDate, errorMessage);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package hudson.plugins.tics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+import hudson.plugins.tics.QualityGateApiResponse.Condition;
+import hudson.plugins.tics.QualityGateApiResponse.Gate;
+
+/**
+ * The changes of a quality gate since the gate of a previous build, computed once when the results are published.
+ * Only the conditions that changed are kept, together with the number of passed and failed conditions of each gate,
+ * so that rendering does not have to go over all conditions. The outcome of every condition is kept in a compact form,
+ * so that the next build can be compared with this one without the full response of the viewer.
+ * <p>
+ * Conditions do not have an identifier, and their messages contain the measured values, so a condition is matched
+ * to the condition in the gate with the same name in the previous build whose message is the same apart from its numbers,
+ * see {@link #getKey(Condition)}. Conditions with the same key are matched in order.
+ *
+ * Note: the fields of this class are serialized in Jenkins' build.xml files. DO NOT RENAME THEM.
+ */
+public class QualityGateDiff {
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:[.,]\\d+)*");
+
+    /** Number of the build that this gate is compared with, or 0 if there was no previous gate. */
+    public final int previousBuildNumber;
+    public final List<GateCounts> gates;
+    public final List<String> newlyFailing;
+    public final List<String> newlyPassing;
+    public final int unchangedCount;
+    /** The outcome of every condition, for the comparison of the next build. Null for builds from before it was stored. */
+    public final List<ConditionState> conditions;
+
+    public static final class GateCounts {
+        public final String name;
+        public final int passed;
+        public final int failed;
+
+        GateCounts(final String name, final int passed, final int failed) {
+            this.name = name;
+            this.passed = passed;
+            this.failed = failed;
+        }
+    }
+
+    /** The outcome of a condition of a gate. */
+    public static final class ConditionState {
+        public final String gate;
+        public final String key;
+        public final boolean passed;
+
+        ConditionState(final String gate, final String key, final boolean passed) {
+            this.gate = gate;
+            this.key = key;
+            this.passed = passed;
+        }
+    }
+
+    private QualityGateDiff(final int previousBuildNumber, final List<GateCounts> gates, final List<String> newlyFailing, final List<String> newlyPassing, final int unchangedCount,
+            final List<ConditionState> conditions) {
+        this.previousBuildNumber = previousBuildNumber;
+        this.gates = gates;
+        this.newlyFailing = newlyFailing;
+        this.newlyPassing = newlyPassing;
+        this.unchangedCount = unchangedCount;
+        this.conditions = conditions;
+    }
+
+    /** Returns the outcome of every condition of the given response. */
+    public static List<ConditionState> getConditions(final QualityGateApiResponse response) {
+        return response.gates.stream()
+                .flatMap(g -> g.conditions.stream().map(c -> new ConditionState(g.name, getKey(c), c.passed)))
+                .collect(Collectors.toList());
+    }
+
+    /** Returns the message of the condition without its numbers, which are the measured values and thresholds. */
+    static String getKey(final Condition condition) {
+        return NUMBER.matcher(condition.message == null ? "" : condition.message).replaceAll("#");
+    }
+
+    /**
+     * Compares the given gate with the conditions of the given previous build. Conditions that were not in the previous build
+     * count as newly failing or unchanged. If there is no previous gate, nothing is newly failing or passing.
+     */
+    public static QualityGateDiff compute(final QualityGateApiResponse current, @Nullable final List<ConditionState> previous, final int previousBuildNumber) {
+        final List<GateCounts> gates = new ArrayList<>();
+        final List<String> newlyFailing = new ArrayList<>();
+        final List<String> newlyPassing = new ArrayList<>();
+        int unchangedCount = 0;
+        final Map<String, Deque<Boolean>> previousOutcomes = new HashMap<>();
+        if (previous != null) {
+            for (final ConditionState state : previous) {
+                previousOutcomes.computeIfAbsent(state.gate + "\n" + state.key, k -> new ArrayDeque<>()).add(state.passed);
+            }
+        }
+        for (final Gate gate : current.gates) {
+            int passed = 0;
+            for (final Condition condition : gate.conditions) {
+                if (condition.passed) {
+                    passed++;
+                }
+                final Deque<Boolean> outcomes = previousOutcomes.get(gate.name + "\n" + getKey(condition));
+                final Boolean previousOutcome = outcomes == null ? null : outcomes.poll();
+                final boolean previouslyPassed = previousOutcome != null ? previousOutcome : previous != null || condition.passed;
+                if (previouslyPassed && !condition.passed) {
+                    newlyFailing.add(condition.message);
+                } else if (!previouslyPassed && condition.passed) {
+                    newlyPassing.add(condition.message);
+                } else {
+                    unchangedCount++;
+                }
+            }
+            gates.add(new GateCounts(gate.name, passed, gate.conditions.size() - passed));
+        }
+        return new QualityGateDiff(previous == null ? 0 : previousBuildNumber, gates, newlyFailing, newlyPassing, unchangedCount, getConditions(current));
+    }
+
+    /** Returns the precomputed number of passed or failed conditions of the given gate. */
+    public Optional<Integer> getCount(final String gateName, final boolean passed) {
+        return gates.stream()
+                .filter(g -> g.name != null && g.name.equals(gateName))
+                .findFirst()
+                .map(g -> passed ? g.passed : g.failed);
+    }
+
+    public boolean hasChanges() {
+        return !newlyFailing.isEmpty() || !newlyPassing.isEmpty();
+    }
+}
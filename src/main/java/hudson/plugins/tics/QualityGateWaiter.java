@@ -0,0 +1,190 @@
+package hudson.plugins.tics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import hudson.AbortException;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.TaskListener;
+import jenkins.util.Timer;
+
+/**
+ * Waits until the quality gate of a project and branch reflects a run that started after a given time.
+ * The gate itself does not tell which run it was computed for, so the runs of the project are polled through the Measure API,
+ * and the gate is retrieved once a new enough run shows up.
+ * <p>
+ * Builds that wait for the same project, branch and credentials share a single poller. The interval between polls starts small
+ * and grows while no new run shows up. Waiting does not occupy a thread: polls are scheduled on the {@link Timer}.
+ */
+final class QualityGateWaiter {
+    private static final QualityGateWaiter INSTANCE = new QualityGateWaiter();
+    private static final long INITIAL_DELAY_MS = Long.getLong(QualityGateWaiter.class.getName() + ".initialDelay", TimeUnit.SECONDS.toMillis(5));
+    private static final long MAX_DELAY_MS = Long.getLong(QualityGateWaiter.class.getName() + ".maxDelay", TimeUnit.SECONDS.toMillis(60));
+    private static final int CALL_TIMEOUT_SECONDS = 30;
+
+    private final Map<String, Poller> pollers = new ConcurrentHashMap<>();
+
+    private static final class Request {
+        final long sinceMillis;
+        final long deadlineMillis;
+        final CompletableFuture<QualityGateData> result = new CompletableFuture<>();
+
+        Request(final long sinceMillis, final long deadlineMillis) {
+            this.sinceMillis = sinceMillis;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+
+    /** Polls one project and branch for all builds waiting on it. All fields are guarded by the instance. */
+    private final class Poller {
+        private final String key;
+        private final String tiobeWebBaseUrl;
+        private final String ticsPath;
+        private final Optional<Pair<String, String>> credentials;
+        private final List<Request> requests = new ArrayList<>();
+        private long delayMillis = INITIAL_DELAY_MS;
+        private long lastRunMillis = Long.MIN_VALUE;
+        private String lastError;
+        private boolean scheduled;
+
+        Poller(final String key, final String tiobeWebBaseUrl, final String ticsPath, final Optional<Pair<String, String>> credentials) {
+            this.key = key;
+            this.tiobeWebBaseUrl = tiobeWebBaseUrl;
+            this.ticsPath = ticsPath;
+            this.credentials = credentials;
+        }
+
+        /** Returns false if the poller was already finished, in which case a new one should be used. */
+        synchronized boolean add(final Request request) {
+            if (requests.isEmpty() && scheduled) {
+                return false;
+            }
+            requests.add(request);
+            delayMillis = INITIAL_DELAY_MS;
+            if (!scheduled) {
+                scheduled = true;
+                schedule(0);
+            }
+            return true;
+        }
+
+        synchronized void remove(final CompletableFuture<QualityGateData> result) {
+            requests.removeIf(r -> r.result == result);
+        }
+
+        /** The timer only hands the poll to a pool for blocking work, as its own threads are shared by all of Jenkins. */
+        private void schedule(final long delay) {
+            Timer.get().schedule(() -> {
+                Computer.threadPoolForRemoting.submit(this::poll);
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        private void poll() {
+            Optional<Long> lastRun;
+            String error = null;
+            try {
+                lastRun = getLastRunMillis();
+            } catch (final MeasureApiCall.MeasureApiCallException | RuntimeException e) {
+                lastRun = Optional.empty();
+                error = e.getMessage();
+            }
+
+            final List<Request> satisfied = new ArrayList<>();
+            synchronized (this) {
+                lastError = error;
+                if (lastRun.isPresent() && lastRun.get() != lastRunMillis) {
+                    // Something happened on the viewer, so poll more often again
+                    lastRunMillis = lastRun.get();
+                    delayMillis = INITIAL_DELAY_MS;
+                }
+                for (final Request request : requests) {
+                    if (lastRun.isPresent() && lastRun.get() >= request.sinceMillis) {
+                        satisfied.add(request);
+                    }
+                }
+            }
+
+            if (!satisfied.isEmpty()) {
+                try {
+                    final QualityGateApiCall apiCall = new QualityGateApiCall(tiobeWebBaseUrl + "/api/public/v1/QualityGateStatus", ticsPath, credentials, TaskListener.NULL);
+                    apiCall.setTimeoutSeconds(CALL_TIMEOUT_SECONDS);
+                    final QualityGateData gate = apiCall.retrieveQualityGateData();
+                    satisfied.forEach(r -> r.result.complete(gate));
+                } catch (final RuntimeException e) {
+                    satisfied.forEach(r -> r.result.completeExceptionally(e));
+                }
+            }
+
+            synchronized (this) {
+                final long now = System.currentTimeMillis();
+                for (final Request request : requests) {
+                    if (!request.result.isDone() && now > request.deadlineMillis) {
+                        request.result.completeExceptionally(new AbortException(TicsPublisher.LOGGING_PREFIX + "The quality gate of " + ticsPath
+                                + " did not reflect a new run within " + Util.getTimeSpanString(request.deadlineMillis - request.sinceMillis)
+                                + (lastError == null ? "" : ". The last poll failed: " + lastError)));
+                    }
+                }
+                requests.removeIf(r -> r.result.isDone());
+                if (requests.isEmpty()) {
+                    pollers.remove(key, this);
+                    return;
+                }
+                final long nextDeadline = requests.stream().map(r -> r.deadlineMillis).min(Comparator.naturalOrder()).get();
+                final long delay = Math.max(0, Math.min(delayMillis, nextDeadline - now + 1));
+                delayMillis = Math.min(delayMillis * 2, MAX_DELAY_MS);
+                schedule(delay);
+            }
+        }
+
+        private Optional<Long> getLastRunMillis() throws MeasureApiCall.MeasureApiCallException {
+            final MeasureApiCall measureApiCall = new MeasureApiCall(TaskListener.NULL.getLogger(), ValidationHelper.getMeasureApiUrl(tiobeWebBaseUrl), credentials);
+            measureApiCall.setTimeoutSeconds(CALL_TIMEOUT_SECONDS);
+            final MeasureApiSuccessResponse<List<MeasureApiSuccessResponse.Run>> resp = measureApiCall.execute(MeasureApiCall.RESPONSE_RUNS_TYPETOKEN, ticsPath, "runs");
+            return resp.data.stream()
+                    .filter(mv -> mv.value != null)
+                    .flatMap(mv -> mv.value.stream())
+                    .map(run -> run.getStarted().getMillis())
+                    .max(Comparator.naturalOrder());
+        }
+    }
+
+    private QualityGateWaiter() {
+    }
+
+    static QualityGateWaiter get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the quality gate of the given path, once it reflects a run that started at or after the given time.
+     * Completes exceptionally if that does not happen before the deadline.
+     * @param credentialsId identifies the credentials, so that only builds with the same credentials share a poller
+     */
+    CompletableFuture<QualityGateData> await(final String tiobeWebBaseUrl, final String ticsPath, final String credentialsId, final Optional<Pair<String, String>> credentials,
+            final long sinceMillis, final long deadlineMillis) {
+        final String key = tiobeWebBaseUrl + "\n" + ticsPath + "\n" + credentialsId;
+        final Request request = new Request(sinceMillis, deadlineMillis);
+        while (true) {
+            final Poller poller = pollers.computeIfAbsent(key, k -> new Poller(k, tiobeWebBaseUrl, ticsPath, credentials));
+            if (poller.add(request)) {
+                return request.result;
+            }
+            // The poller just finished; start a new one
+            pollers.remove(key, poller);
+        }
+    }
+
+    /** Stops waiting for the given result, e.g. because the build was aborted. */
+    void cancel(final CompletableFuture<QualityGateData> result) {
+        pollers.values().forEach(p -> p.remove(result));
+    }
+}
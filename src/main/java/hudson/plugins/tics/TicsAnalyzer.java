@@ -1,22 +1,33 @@
 package hudson.plugins.tics;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Nonnull;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.text.StringEscapeUtils;
 import org.apache.http.client.utils.URIBuilder;
+import org.joda.time.Instant;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.verb.POST;
@@ -25,30 +36,37 @@ import com.google.common.base.Joiner;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
+import hudson.Functions;
 import hudson.Launcher;
 import hudson.Launcher.ProcStarter;
-import hudson.Proc;
 import hudson.Util;
 import hudson.model.AbstractProject;
+import hudson.model.Computer;
 import hudson.model.Item;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.plugins.tics.MeasureApiCall.MeasureApiCallException;
 import hudson.plugins.tics.TicsPublisher.InvalidTicsViewerUrl;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Builder;
 import hudson.util.ArgumentListBuilder;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import jenkins.model.Jenkins;
 import jenkins.tasks.SimpleBuildStep;
 import net.sf.json.JSONObject;
 
 public class TicsAnalyzer extends Builder implements SimpleBuildStep {
     static final String LOGGING_PREFIX = "[TICS Analyzer] ";
+    /** How far the clocks of the controller and the viewer may differ when a run of the viewer is matched to an analysis. */
+    static final long CLOCK_SKEW_MILLIS = TimeUnit.MINUTES.toMillis(5);
 
     // DO NOT RENAME THESE FIELDS, as they are serialized (by Jenkins) in jobs/<project>/config.xml
     public final String ticsPath;
@@ -64,6 +82,16 @@ public class TicsAnalyzer extends Builder implements SimpleBuildStep {
     public final Metrics recalc;
     public final boolean installTics;
     public final String credentialsId;
+    public boolean incrementalAnalysis;
+    public String incrementalGitBase;
+    public int incrementalMaxFiles;
+    public int shardCount;
+    public int shardIndex;
+    public int timeoutMinutes;
+    public int noOutputTimeoutMinutes;
+    public boolean compressedLog;
+    public boolean managedTmpdir;
+    public boolean skipAnalyzedCommits;
 
     /**
      * This annotation tells Hudson to call this constructor, with values from the configuration form page with matching parameter names.
@@ -102,14 +130,97 @@ public class TicsAnalyzer extends Builder implements SimpleBuildStep {
         this.credentialsId = credentialsId;
     }
 
+    @DataBoundSetter
+    public void setIncrementalAnalysis(final boolean value) {
+        this.incrementalAnalysis = value;
+    }
+
+    @DataBoundSetter
+    public void setIncrementalGitBase(final String value) {
+        this.incrementalGitBase = value;
+    }
+
+    @DataBoundSetter
+    public void setIncrementalMaxFiles(final int value) {
+        this.incrementalMaxFiles = value;
+    }
+
+    @DataBoundSetter
+    public void setShardCount(final int value) {
+        this.shardCount = value;
+    }
+
+    @DataBoundSetter
+    public void setShardIndex(final int value) {
+        this.shardIndex = value;
+    }
+
+    @DataBoundSetter
+    public void setTimeoutMinutes(final int value) {
+        this.timeoutMinutes = value;
+    }
+
+    @DataBoundSetter
+    public void setNoOutputTimeoutMinutes(final int value) {
+        this.noOutputTimeoutMinutes = value;
+    }
+
+    @DataBoundSetter
+    public void setCompressedLog(final boolean value) {
+        this.compressedLog = value;
+    }
+
+    @DataBoundSetter
+    public void setManagedTmpdir(final boolean value) {
+        this.managedTmpdir = value;
+    }
+
+    @DataBoundSetter
+    public void setSkipAnalyzedCommits(final boolean value) {
+        this.skipAnalyzedCommits = value;
+    }
+
+    private boolean isSharded() {
+        return shardCount > 1;
+    }
+
     @Override
     public void perform(@Nonnull final Run<?, ?> run, @Nonnull final FilePath workspace, @Nonnull final EnvVars envvars, @Nonnull final Launcher launcher, @Nonnull final TaskListener listener) throws IOException, InterruptedException {
+        perform(run, workspace, launcher, listener, Optional.empty());
+    }
+
+    /**
+     * Returns the key under which {@link AnalysisThrottle} limits this analysis, for the environment of the build,
+     * i.e. <code>run.getEnvironment(listener)</code>.
+     */
+    String getThrottleKey(final EnvVars buildEnv) {
+        return AnalysisThrottle.getKey(getViewerKey(buildEnv), Util.replaceMacro(projectName, buildEnv));
+    }
+
+    /**
+     * Runs the analysis. If a permit is given, the caller acquired it for {@link #getThrottleKey(EnvVars)} already and closes it afterwards;
+     * otherwise the analysis waits for a permit itself, right before TICSQServer is launched.
+     */
+    void perform(final Run<?, ?> run, final FilePath workspace, final Launcher launcher, final TaskListener listener, final Optional<AnalysisThrottle.Permit> acquiredPermit) throws IOException, InterruptedException {
         final String errorPrefix = "TICS Analysis failed with exit code: ";
         final PrintStream logger = listener.getLogger();
         try {
             final EnvVars buildEnv = run.getEnvironment(listener);
+            final Optional<Set<String>> filesToAnalyze = getFilesToAnalyze(run, workspace, launcher, buildEnv, listener);
+            if (filesToAnalyze.isPresent() && filesToAnalyze.get().isEmpty()) {
+                logger.println(LOGGING_PREFIX + "Shard " + (shardIndex + 1) + " of " + shardCount + " contains no files. Skipping the analysis.");
+                final long now = System.currentTimeMillis();
+                TicsShardTimingAction.record(run, new TicsShardTimingAction.ShardTiming(shardIndex, shardCount, getNodeName(workspace), 0, now, now, true));
+                return;
+            }
+            final Optional<String> ledgerKey = skipAnalyzedCommits ? getLedgerKey(filesToAnalyze, buildEnv, logger) : Optional.empty();
+            if (ledgerKey.isPresent() && isAnalyzedBefore(ledgerKey.get(), run, buildEnv, logger)) {
+                return;
+            }
             String installTicsApiFullUrl = "";
-            int exitCode;
+            Map<String, String> installEnv = ImmutableMap.of();
+            int exitCode = -1;
+            final long analysisStart = System.currentTimeMillis();
 
             if (installTics) {
                 final String tiobeWebBaseUrl;
@@ -122,21 +233,65 @@ public class TicsAnalyzer extends Builder implements SimpleBuildStep {
                     ex.printStackTrace(listener.getLogger());
                     throw new IllegalArgumentException(LOGGING_PREFIX + "Invalid TICS Viewer URL", ex);
                 }
+                ViewerHealthMonitor.get().registerViewer(tiobeWebBaseUrl);
 
                 final EnvVars env2 = new EnvVars(buildEnv);
                 env2.putAll(AuthHelper.getPluginEnvMap(buildEnv, environmentVariables));
                 final Optional<Pair<String, String>> usernameAndPassword = AuthHelper.lookupUsernameAndPasswordFromCredentialsId(run.getParent(), credentialsId, env2);
+                final Supplier<String> installTicsUrl = () -> {
+                    final InstallTicsApiCall installTicsApiCall = new InstallTicsApiCall(ticsInstallApiBaseUrl, usernameAndPassword, listener);
+                    final String installTicsApiData = installTicsApiCall.retrieveInstallTics();
+                    return tiobeWebBaseUrl + installTicsApiData;
+                };
+
+                final Optional<String> ticsVersion = getViewerVersion(tiobeWebBaseUrl, usernameAndPassword, logger);
+                final Optional<Map<String, String>> cachedEnv;
+                if (ticsVersion.isPresent()) {
+                    final TicsInstallationCache cache = new TicsInstallationCache(TicsInstallationCache.getAgentCacheRoot(workspace, "install-cache"), tiobeWebBaseUrl, ticsVersion.get());
+                    final String installerKey = tiobeWebBaseUrl + " " + ticsVersion.get() + " " + getNodeOs(launcher);
+                    cachedEnv = getCachedInstallation(cache, installerKey, installTicsUrl, usernameAndPassword, run, launcher, listener, buildEnv, workspace);
+                } else {
+                    logger.println(LOGGING_PREFIX + "Could not determine the TICS version of the viewer. TICS will be installed without using the agent cache.");
+                    cachedEnv = Optional.empty();
+                }
 
-                final InstallTicsApiCall installTicsApiCall = new InstallTicsApiCall(ticsInstallApiBaseUrl, usernameAndPassword, listener);
-                final String installTicsApiData = installTicsApiCall.retrieveInstallTics();
-                installTicsApiFullUrl = tiobeWebBaseUrl + installTicsApiData;
+                if (cachedEnv.isPresent()) {
+                    installEnv = cachedEnv.get();
+                } else {
+                    installTicsApiFullUrl = installTicsUrl.get();
+                }
             }
 
-            exitCode = launchTicsQServer(installTicsApiFullUrl, run, launcher, listener, buildEnv, workspace);
+            try (AnalysisThrottle.Permit permit = acquiredPermit.isPresent() ? null : AnalysisThrottle.get().acquire(getThrottleKey(buildEnv), listener)) {
+                final Optional<FilePath> fileList = filesToAnalyze.isPresent() ? Optional.of(ChangedFiles.writeFileList(filesToAnalyze.get(), workspace)) : Optional.empty();
+                final long start = System.currentTimeMillis();
+                TicsTmpdirCache.Slot tmpdirSlot = null;
+                try {
+                    if (managedTmpdir) {
+                        tmpdirSlot = new TicsTmpdirCache(TicsInstallationCache.getAgentCacheRoot(workspace, "tmpdir-cache"), Util.replaceMacro(projectName, buildEnv), Util.replaceMacro(branchName, buildEnv)).acquire(listener);
+                    }
+                    final Optional<String> tmpdirOverride = tmpdirSlot == null ? Optional.empty() : Optional.of(tmpdirSlot.getDir().getRemote());
+                    exitCode = launchTicsQServer(installTicsApiFullUrl, installEnv, fileList, tmpdirOverride, run, launcher, listener, buildEnv, workspace);
+                } finally {
+                    if (tmpdirSlot != null) {
+                        tmpdirSlot.release(listener);
+                    }
+                    if (fileList.isPresent()) {
+                        fileList.get().delete();
+                    }
+                    if (isSharded()) {
+                        TicsShardTimingAction.record(run, new TicsShardTimingAction.ShardTiming(shardIndex, shardCount, getNodeName(workspace),
+                                filesToAnalyze.map(Set::size).orElse(0), start, System.currentTimeMillis(), exitCode == 0));
+                    }
+                }
+            }
             if (exitCode != 0) {
                 logger.println(LOGGING_PREFIX + "Exit code " + exitCode);
                 throw new RuntimeException(LOGGING_PREFIX + errorPrefix + exitCode);
             }
+            if (ledgerKey.isPresent()) {
+                AnalysisLedger.get().record(ledgerKey.get(), new AnalysisLedger.Entry(run.getFullDisplayName(), analysisStart, System.currentTimeMillis()));
+            }
         } catch (final IOException e) {
             logger.println(LOGGING_PREFIX + e.getMessage());
             throw e;
@@ -157,26 +312,357 @@ public class TicsAnalyzer extends Builder implements SimpleBuildStep {
     }
 
 
-    int launchTicsQServer(final String url, final Run<?, ?> run, final Launcher launcher, final TaskListener listener, final EnvVars buildEnv, final FilePath workspace) throws IOException, InterruptedException {
+    /**
+     * Returns the files to analyze, or empty if the whole project should be analyzed.
+     * For an incremental analysis, these are the changed files, unless they are unknown or too many.
+     * For a sharded analysis, only the files of the shard are returned, which may be none.
+     */
+    private Optional<Set<String>> getFilesToAnalyze(final Run<?, ?> run, final FilePath workspace, final Launcher launcher, final EnvVars buildEnv, final TaskListener listener) throws IOException, InterruptedException {
+        final PrintStream logger = listener.getLogger();
+        Optional<Set<String>> files = Optional.empty();
+        if (incrementalAnalysis) {
+            files = getChangedFiles(run, workspace, launcher, buildEnv, listener);
+        }
+        if (!isSharded()) {
+            return files;
+        }
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException(LOGGING_PREFIX + "The shard index should be between 0 and " + (shardCount - 1) + ", but is " + shardIndex);
+        }
+        TicsShardTimingAction.start(run, shardIndex, shardCount);
+        if (!files.isPresent()) {
+            files = ChangedFiles.trackedFiles(workspace, launcher, buildEnv, listener);
+            if (!files.isPresent()) {
+                throw new IllegalArgumentException(LOGGING_PREFIX + "A sharded analysis requires a git repository in the workspace, to determine the files of each shard");
+            }
+        }
+        final Set<String> shard = ChangedFiles.selectShard(files.get(), shardCount, shardIndex);
+        logger.println(LOGGING_PREFIX + "Shard " + (shardIndex + 1) + " of " + shardCount + ": analyzing " + shard.size() + " of " + files.get().size() + " files");
+        return Optional.of(shard);
+    }
+
+    /** Returns the changed files, or empty if the whole project should be analyzed, because the changed files are unknown or too many. */
+    private Optional<Set<String>> getChangedFiles(final Run<?, ?> run, final FilePath workspace, final Launcher launcher, final EnvVars buildEnv, final TaskListener listener) throws IOException, InterruptedException {
+        final PrintStream logger = listener.getLogger();
+        final String gitBase = Util.fixEmptyAndTrim(Util.replaceMacro(incrementalGitBase, buildEnv));
+        final Optional<Set<String>> changedFiles = ChangedFiles.collect(run, gitBase, workspace, launcher, buildEnv, listener);
+        if (!changedFiles.isPresent()) {
+            logger.println(LOGGING_PREFIX + "The changed files are unknown. The whole project will be analyzed.");
+            return Optional.empty();
+        }
+        final int maxFiles = incrementalMaxFiles > 0 ? incrementalMaxFiles : ChangedFiles.DEFAULT_MAX_FILES;
+        if (changedFiles.get().size() > maxFiles) {
+            logger.println(LOGGING_PREFIX + "Found " + ChangedFiles.describe(changedFiles.get()) + ", which is more than " + maxFiles + ". The whole project will be analyzed.");
+            return Optional.empty();
+        }
+        logger.println(LOGGING_PREFIX + "Analyzing " + ChangedFiles.describe(changedFiles.get()));
+        return changedFiles;
+    }
+
+    /**
+     * Returns the key of this analysis in the {@link AnalysisLedger}, or empty if it should not be recorded:
+     * the commit is unknown, or only part of the project is analyzed.
+     */
+    private Optional<String> getLedgerKey(final Optional<Set<String>> filesToAnalyze, final EnvVars buildEnv, final PrintStream logger) {
+        final String commit = Util.fixEmptyAndTrim(buildEnv.get("GIT_COMMIT"));
+        if (commit == null) {
+            logger.println(LOGGING_PREFIX + "The commit is unknown, as GIT_COMMIT is not set. Analyzed commits cannot be skipped.");
+            return Optional.empty();
+        }
+        if (filesToAnalyze.isPresent()) {
+            logger.println(LOGGING_PREFIX + "Only part of the project is analyzed. Analyzed commits cannot be skipped.");
+            return Optional.empty();
+        }
+        return Optional.of(AnalysisLedger.getKey(getViewerKey(buildEnv), Util.replaceMacro(projectName, buildEnv), Util.replaceMacro(branchName, buildEnv), commit, calc, recalc));
+    }
+
+    /**
+     * Returns true if the commit was analyzed successfully before with the same metrics, and the viewer has not had a run of the
+     * project and branch since, in which case the results of that analysis are still the current ones.
+     * Exactly one run should have started since the start of that analysis, and it should be the run of that analysis itself;
+     * any other run, including one that ran concurrently, may have replaced its results. Without such a run, the results of that
+     * analysis are not on the viewer.
+     * For a local configuration, the runs of the viewer are unknown, and the commit is analyzed again.
+     */
+    private boolean isAnalyzedBefore(final String ledgerKey, final Run<?, ?> run, final EnvVars buildEnv, final PrintStream logger) {
+        final String commit = buildEnv.get("GIT_COMMIT").trim();
+        final Optional<AnalysisLedger.Entry> entry = AnalysisLedger.get().lookup(ledgerKey);
+        if (!entry.isPresent()) {
+            logger.println(LOGGING_PREFIX + "Commit " + commit + " has not been analyzed before with these metrics");
+            return false;
+        }
+        final String analyzed = "Commit " + commit + " was analyzed successfully by " + entry.get().getBuild() + " "
+                + Util.getTimeSpanString(System.currentTimeMillis() - entry.get().getFinishedMillis()) + " ago";
+
+        final String project = Util.replaceMacro(projectName, buildEnv);
+        final String branch = Util.replaceMacro(branchName, buildEnv);
+        final String measureApiUrl;
+        try {
+            measureApiUrl = ValidationHelper.getMeasureApiUrl(ValidationHelper.getTiobewebBaseUrlFromGivenUrl(Util.replaceMacro(ticsConfiguration, buildEnv)));
+        } catch (final InvalidTicsViewerUrl e) {
+            logger.println(LOGGING_PREFIX + analyzed + ", but the runs of the viewer are unknown for a local configuration. Analyzing again.");
+            return false;
+        }
+        final Optional<Pair<String, String>> credentials = AuthHelper.lookupUsernameAndPasswordFromCredentialsId(run.getParent(), credentialsId, buildEnv);
+        final List<Instant> runs;
+        try {
+            final MeasureApiSuccessResponse<List<MeasureApiSuccessResponse.Run>> resp = new MeasureApiCall(logger, measureApiUrl, credentials)
+                    .execute(MeasureApiCall.RESPONSE_RUNS_TYPETOKEN, "HIE://" + project + "/" + branch, "runs");
+            runs = resp.data.stream()
+                    .filter(mv -> mv.value != null)
+                    .flatMap(mv -> mv.value.stream())
+                    .map(MeasureApiSuccessResponse.Run::getStarted)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (final MeasureApiCallException | RuntimeException e) {
+            logger.println(LOGGING_PREFIX + analyzed + ", but the last run on the viewer could not be determined: " + e.getMessage() + ". Analyzing again.");
+            return false;
+        }
+        if (runs.isEmpty()) {
+            logger.println(LOGGING_PREFIX + analyzed + ", but the viewer has no runs of " + project + "/" + branch + ". Analyzing again.");
+            return false;
+        }
+        final List<Instant> runsSinceStart = getRunsSince(runs, entry.get());
+        if (runsSinceStart.isEmpty()) {
+            logger.println(LOGGING_PREFIX + analyzed + ", but the viewer has no run of " + project + "/" + branch + " for that analysis. Analyzing again.");
+            return false;
+        }
+        if (runsSinceStart.size() > 1) {
+            logger.println(LOGGING_PREFIX + analyzed + ", but the viewer has " + runsSinceStart.size() + " runs of " + project + "/" + branch
+                    + " that started since, the last at " + runsSinceStart.get(runsSinceStart.size() - 1) + ". Analyzing again.");
+            return false;
+        }
+        if (!isRunOf(runsSinceStart.get(0), entry.get())) {
+            logger.println(LOGGING_PREFIX + analyzed + ", but the last run of " + project + "/" + branch + " started at " + runsSinceStart.get(0)
+                    + ", after that analysis finished. Analyzing again.");
+            return false;
+        }
+        logger.println(LOGGING_PREFIX + analyzed + ", and the viewer has no newer run of " + project + "/" + branch + ". Skipping the analysis.");
+        return true;
+    }
+
+    /** Returns the runs, sorted by start, that may have started since the analysis of the given entry started. */
+    static List<Instant> getRunsSince(final List<Instant> runs, final AnalysisLedger.Entry entry) {
+        return runs.stream()
+                .filter(started -> started.getMillis() >= entry.getStartedMillis() - CLOCK_SKEW_MILLIS)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /** Returns whether a run that started at the given time can be the run of the analysis of the given entry. */
+    static boolean isRunOf(final Instant started, final AnalysisLedger.Entry entry) {
+        return started.getMillis() >= entry.getStartedMillis() - CLOCK_SKEW_MILLIS
+                && started.getMillis() <= entry.getFinishedMillis() + CLOCK_SKEW_MILLIS;
+    }
+
+    /**
+     * Launches TICSQServer. If a url is given, the install script at that url is sourced first.
+     * The given installEnv holds the environment of a cached installation, see {@link TicsInstallationCache}.
+     * If a file list is given, only the files in it are analyzed.
+     * If a tmpdir is given, it is used instead of the configured tmpdir.
+     */
+    int launchTicsQServer(final String url, final Map<String, String> installEnv, final Optional<FilePath> fileList, final Optional<String> tmpdirOverride, final Run<?, ?> run, final Launcher launcher, final TaskListener listener, final EnvVars buildEnv, final FilePath workspace) throws IOException, InterruptedException {
 
-        final String bootstrapCommand =  installTics ? getBootstrapCmd(url, launcher) : "";
+        final String bootstrapCommand = Strings.isNullOrEmpty(url) ? "" : getBootstrapCmd(url, launcher);
         final boolean isLauncherUnix = launcher.isUnix();
-        final ArgumentListBuilder ticsAnalysisCommand = getTicsQServerArgs(buildEnv, isLauncherUnix);
+        final ArgumentListBuilder ticsAnalysisCommand = getTicsQServerArgs(buildEnv, isLauncherUnix, fileList.map(FilePath::getRemote), tmpdirOverride);
+
+        final Map<String, String> envs = Maps.newLinkedHashMap(installEnv);
+        envs.putAll(getEnvMap(buildEnv, run));
+
+        final long prepareStart = System.currentTimeMillis();
+        // A decorated launcher, e.g. of a container, may run the process where the executable cannot be resolved from the agent
+        final Optional<String> executable = bootstrapCommand.isEmpty() && installEnv.isEmpty() && isUndecorated(launcher)
+                ? AnalysisProcess.resolveExecutable(launcher.getChannel(), ticsAnalysisCommand.toList().get(0), buildEnv.get("PATH"))
+                : Optional.empty();
+        final AnalysisProcess.Result result;
+        final String mode;
+        if (executable.isPresent()) {
+            // No bootstrap needed, so TICSQServer is launched directly, without writing a wrapper script to the workspace
+            final List<String> cmds = Lists.newArrayList(ticsAnalysisCommand.toList());
+            cmds.set(0, executable.get());
+            final AnalysisProcess process = new AnalysisProcess(cmds, envs, timeoutMinutes, noOutputTimeoutMinutes, getNodeName(workspace));
+            final long prepareMillis = System.currentTimeMillis() - prepareStart;
+            result = execute(process, run, launcher, listener, workspace);
+            mode = "directly, launch overhead " + (prepareMillis + result.launchMillis) + " ms";
+        } else {
+            final FilePath scriptPath = createScript(workspace, bootstrapCommand, ticsAnalysisCommand, launcher);
+            final AnalysisProcess process = new AnalysisProcess(Arrays.asList(Util.tokenize(runScript(scriptPath.getRemote(), launcher))), envs, timeoutMinutes, noOutputTimeoutMinutes, getNodeName(workspace));
+            final long prepareMillis = System.currentTimeMillis() - prepareStart;
+            final long cleanupStart;
+            try {
+                result = execute(process, run, launcher, listener, workspace);
+            } finally {
+                cleanupStart = System.currentTimeMillis();
+                scriptPath.delete();
+            }
+            mode = "through a script, launch overhead " + (prepareMillis + result.launchMillis + System.currentTimeMillis() - cleanupStart) + " ms";
+        }
+        listener.getLogger().println(LOGGING_PREFIX + "Launched TICSQServer " + mode);
 
-        final FilePath scriptPath = createScript(workspace, bootstrapCommand, ticsAnalysisCommand, launcher);
-        final ProcStarter starter = launcher.new ProcStarter().stdout(listener).cmdAsSingleString(runScript(scriptPath.getRemote(), launcher))
-                .envs(getEnvMap(buildEnv, run));
+        if (result.usage != null) {
+            run.addAction(result.usage);
+        }
+        if (!result.phases.isEmpty()) {
+            run.addAction(new TicsPhaseTimingAction(run, result.phases));
+        }
+        if (result.killedReason != null) {
+            throw new RuntimeException(LOGGING_PREFIX + result.killedReason);
+        }
+        return result.exitCode;
+    }
 
-        final Proc proc = launcher.launch(starter);
-        final int exitCode = proc.join();
+    private static boolean isUndecorated(final Launcher launcher) {
+        return launcher.getClass() == Launcher.RemoteLauncher.class || launcher.getClass() == Launcher.LocalLauncher.class;
+    }
 
-        scriptPath.delete();
+    private AnalysisProcess.Result execute(final AnalysisProcess process, final Run<?, ?> run, final Launcher launcher, final TaskListener listener, final FilePath workspace) throws IOException, InterruptedException {
+        return compressedLog ? executeWithCompressedLog(process, run, launcher, listener, workspace) : process.execute(launcher, launcher.getChannel(), listener, null);
+    }
 
-        return exitCode;
+    /**
+     * Executes the analysis, writing its complete output to a gzip-compressed log in the build directory, and only a summary to the console.
+     * If the launcher is not decorated, e.g. by a container step, the analysis runs on the agent entirely and the log is
+     * written to a temporary file in the workspace, so that only the summary is sent to the controller while the analysis runs.
+     * The compressed log is copied to the build directory afterwards, so that it is rotated with the build.
+     * Otherwise, the output has to pass through the launcher, and the log is written to the build directory directly.
+     */
+    private AnalysisProcess.Result executeWithCompressedLog(final AnalysisProcess process, final Run<?, ?> run, final Launcher launcher, final TaskListener listener, final FilePath workspace) throws IOException, InterruptedException {
+        final PrintStream logger = listener.getLogger();
+        final String logName = "tics-analysis" + (isSharded() ? "-shard" + shardIndex : "") + ".log.gz";
+        final File logFile = new File(run.getRootDir(), logName);
+        final AnalysisProcess.Result result;
+        if (isUndecorated(launcher)) {
+            final FilePath agentLogFile = workspace.createTempFile("tics-analysis", ".log.gz");
+            try {
+                result = launcher.getChannel().call(process.onAgent(listener, agentLogFile.getRemote()));
+                agentLogFile.copyTo(new FilePath(logFile));
+            } finally {
+                agentLogFile.delete();
+            }
+            logger.println(LOGGING_PREFIX + "Sent " + Functions.humanReadableByteSize(result.consoleBytes) + " of " + Functions.humanReadableByteSize(result.totalBytes)
+                    + " of output to the controller; the complete output of TICSQServer is in " + logFile);
+        } else {
+            logger.println(LOGGING_PREFIX + "Writing the complete output of TICSQServer to " + logFile);
+            try (OutputStream log = new GZIPOutputStream(new FileOutputStream(logFile))) {
+                result = process.execute(launcher, launcher.getChannel(), listener, log);
+            }
+            logger.println(LOGGING_PREFIX + "Received " + Functions.humanReadableByteSize(result.totalBytes) + " of output from the agent, as the launcher is decorated; "
+                    + Functions.humanReadableByteSize(result.consoleBytes) + " was written to the console");
+        }
+        return result;
     }
 
+    /** Identifies the viewer for throttling and the {@link AnalysisLedger}; an analysis with a local configuration counts as its own viewer. */
+    private String getViewerKey(final EnvVars buildEnv) {
+        final String configuration = Util.replaceMacro(Strings.nullToEmpty(ticsConfiguration).trim(), buildEnv);
+        try {
+            return ValidationHelper.getTiobewebBaseUrlFromGivenUrl(configuration);
+        } catch (final InvalidTicsViewerUrl e) {
+            return configuration;
+        }
+    }
+
+    private static String getNodeName(final FilePath workspace) {
+        final Computer computer = workspace.toComputer();
+        return computer == null ? "" : computer.getDisplayName();
+    }
+
+    /** Returns the version of the viewer, preferably from the {@link ViewerHealthMonitor}. */
+    private Optional<String> getViewerVersion(final String tiobeWebBaseUrl, final Optional<Pair<String, String>> credentials, final PrintStream logger) {
+        final Optional<String> version = ViewerHealthMonitor.get().getFreshHealth(tiobeWebBaseUrl).map(h -> h.version);
+        if (version.isPresent()) {
+            return version;
+        }
+        try {
+            final TicsVersionApiCall ticsVersionApiCall = new TicsVersionApiCall(tiobeWebBaseUrl + "/api/v1/version", credentials, logger);
+            return Optional.ofNullable(Strings.emptyToNull(ticsVersionApiCall.retrieveTicsVersion()));
+        } catch (final RuntimeException e) {
+            logger.println(LOGGING_PREFIX + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the environment of the TICS installation in the agent cache, installing TICS into the cache first if needed.
+     * Returns empty if the installation could not be captured, in which case the install script should be run as part of the analysis.
+     */
+    private Optional<Map<String, String>> getCachedInstallation(final TicsInstallationCache cache, final String installerKey, final Supplier<String> installTicsUrl,
+            final Optional<Pair<String, String>> credentials, final Run<?, ?> run, final Launcher launcher, final TaskListener listener, final EnvVars buildEnv, final FilePath workspace) throws IOException, InterruptedException {
+        final PrintStream logger = listener.getLogger();
+        final AgentLock lock = cache.lock(listener);
+        try {
+            final Optional<Map<String, String>> cachedEnv = cache.load(launcher.isUnix());
+            if (cachedEnv.isPresent()) {
+                logger.println(LOGGING_PREFIX + "Using TICS installation from the agent cache");
+                return cachedEnv;
+            }
+
+            logger.println(LOGGING_PREFIX + "Installing TICS into the agent cache at " + cache.getInstallDir().getRemote());
+            cache.prepare();
+            // The controller downloads the install script once for all agents
+            final FilePath installer = workspace.createTempFile("tics-install", launcher.isUnix() ? ".sh" : ".ps1");
+            FilePath scriptPath = null;
+            final int exitCode;
+            try {
+                TicsInstallerCache.get().getInstaller(installerKey, installTicsUrl, credentials, launcher.isUnix(), listener).copyTo(installer);
+                final String installScript = getInstallIntoCacheScript(getSourceFileCmd(installer.getRemote(), launcher), cache, launcher.isUnix());
+                scriptPath = createScript(workspace, installScript, launcher);
+                final ProcStarter starter = launcher.new ProcStarter().stdout(listener).cmdAsSingleString(runScript(scriptPath.getRemote(), launcher))
+                        .envs(getEnvMap(buildEnv, run));
+                exitCode = launcher.launch(starter).join();
+            } finally {
+                if (scriptPath != null) {
+                    scriptPath.delete();
+                }
+                installer.delete();
+            }
+            if (exitCode != 0) {
+                throw new RuntimeException(LOGGING_PREFIX + "Installing TICS failed with exit code: " + exitCode);
+            }
+
+            cache.store(launcher.isUnix());
+            final Optional<Map<String, String>> installedEnv = cache.load(launcher.isUnix());
+            if (!installedEnv.isPresent()) {
+                logger.println(LOGGING_PREFIX + "TICSQServer could not be located from the environment of the installation. TICS will be installed as part of the analysis.");
+            }
+            return installedEnv;
+        } finally {
+            lock.release();
+            cache.prune();
+        }
+    }
+
+    /** Sources the install script, and dumps the environment before and after, so that the changes can be stored in the cache. */
+    private String getInstallIntoCacheScript(final String bootstrapCmd, final TicsInstallationCache cache, final boolean isLinux) {
+        final String before = cache.getEnvBeforeFile().getRemote();
+        final String after = cache.getEnvAfterFile().getRemote();
+        final String installDir = cache.getInstallDir().getRemote();
+        if (isLinux) {
+            return "env -0 > " + StringEscapeUtils.escapeXSI(before) + "\n"
+                    + "if [ -z \"$TICSINSTALLDIR\" ]; then export TICSINSTALLDIR=" + StringEscapeUtils.escapeXSI(installDir) + "; fi\n"
+                    + bootstrapCmd + "\n"
+                    + "command -v TICSQServer > /dev/null || exit 1\n"
+                    + "env -0 > " + StringEscapeUtils.escapeXSI(after);
+        } else {
+            return "function Save-Env($file) { Get-ChildItem env: | ForEach-Object { \"$($_.Name)=$($_.Value)\" } | Out-File -FilePath $file -Encoding utf8 }\n"
+                    + "Save-Env " + quotePowerShell(before) + "\n"
+                    + "if (-not $env:TICSINSTALLDIR) { $env:TICSINSTALLDIR = " + quotePowerShell(installDir) + " }\n"
+                    + bootstrapCmd + "\n"
+                    + "if (-not (Get-Command TICSQServer.exe -ErrorAction SilentlyContinue)) { exit 1 }\n"
+                    + "Save-Env " + quotePowerShell(after);
+        }
+    }
+
+    private static String quotePowerShell(final String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
 
     protected ArgumentListBuilder getTicsQServerArgs(final EnvVars buildEnv, final boolean isLauncherUnix) {
+        return getTicsQServerArgs(buildEnv, isLauncherUnix, Optional.empty(), Optional.empty());
+    }
+
+    protected ArgumentListBuilder getTicsQServerArgs(final EnvVars buildEnv, final boolean isLauncherUnix, final Optional<String> fileList, final Optional<String> tmpdirOverride) {
         final ArgumentListBuilder args = new ArgumentListBuilder();
         final String ticsQServer = "TICSQServer" + (isLauncherUnix ? "" : ".exe");
 
@@ -196,10 +682,17 @@ public class TicsAnalyzer extends Builder implements SimpleBuildStep {
             args.add(Util.replaceMacro(branchDirectory, buildEnv));
         }
 
-        if (createTmpdir && isNotEmpty(tmpdir)) {
+        if (tmpdirOverride.isPresent()) {
+            args.add("-tmpdir");
+            args.add(tmpdirOverride.get());
+        } else if (createTmpdir && isNotEmpty(tmpdir)) {
             args.add("-tmpdir");
             args.add(Util.replaceMacro(tmpdir.trim(), buildEnv));
         }
+        if (fileList.isPresent()) {
+            args.add("-filelist");
+            args.add(fileList.get());
+        }
         if (isNotEmpty(extraArguments)) {
             args.addTokenized(Util.replaceMacro(extraArguments.trim(), buildEnv));
         }
@@ -218,6 +711,16 @@ public class TicsAnalyzer extends Builder implements SimpleBuildStep {
         }
     }
 
+    /** Like {@link #getBootstrapCmd(String, Launcher)}, for an install script that was copied to the agent. */
+    private String getSourceFileCmd(final String file, final Launcher launcher) {
+        final boolean isLinux = launcher.isUnix();
+        if (isLinux) {
+            return ". " + StringEscapeUtils.escapeXSI(file);
+        } else {
+            return "Set-ExecutionPolicy Bypass -Scope Process -Force; [System.Net.ServicePointManager]::SecurityProtocol = [System.Net.ServicePointManager]::SecurityProtocol -bor 3072; . " + quotePowerShell(file);
+        }
+    }
+
     private String runScript(final String file, final Launcher launcher) {
         final boolean isLinux = launcher.isUnix();
 
@@ -229,17 +732,20 @@ public class TicsAnalyzer extends Builder implements SimpleBuildStep {
     }
 
     private FilePath createScript(final FilePath workspace, final String bootstrapCmd, final ArgumentListBuilder ticsAnalysisCmd, final Launcher launcher) throws IOException, InterruptedException {
+        final String ticsAnalysisCmdEscaped = getTicsAnalysisCmdEscaped(ticsAnalysisCmd, launcher.isUnix());
+        return createScript(workspace, bootstrapCmd + "\n" + ticsAnalysisCmdEscaped, launcher);
+    }
+
+    private FilePath createScript(final FilePath workspace, final String commands, final Launcher launcher) throws IOException, InterruptedException {
         final boolean isLinux = launcher.isUnix();
 
         final String scriptSuffix =  isLinux ? ".sh" : ".ps1";
         final String scriptContentStart = isLinux ? "#!/bin/bash" : "";
-        final String ticsAnalysisCmdEscaped = getTicsAnalysisCmdEscaped(ticsAnalysisCmd, isLinux);
 
         final FilePath createTempFile = workspace.createTempFile("tics", scriptSuffix);
 
         final String contents = scriptContentStart + "\n"
-                + bootstrapCmd + "\n"
-                + ticsAnalysisCmdEscaped;
+                + commands;
 
         createTempFile.write(contents, "UTF-8");
 
@@ -318,10 +824,27 @@ public class TicsAnalyzer extends Builder implements SimpleBuildStep {
 
     @Extension
     public static final class DescriptorImpl extends BuildStepDescriptor<Builder> {
+        private int maxConcurrentAnalyses;
+
         public DescriptorImpl() {
             load();
         }
 
+        public static DescriptorImpl get() {
+            return Jenkins.get().getDescriptorByType(DescriptorImpl.class);
+        }
+
+        /** Maximum number of analyses of one project on one viewer that may run at the same time; 0 for no limit. */
+        public int getMaxConcurrentAnalyses() {
+            return maxConcurrentAnalyses;
+        }
+
+        public void setMaxConcurrentAnalyses(final int maxConcurrentAnalyses) {
+            this.maxConcurrentAnalyses = Math.max(0, maxConcurrentAnalyses);
+            // Waiting analyses are not polling the limit, so admit them if it was raised
+            AnalysisThrottle.get().admitAll();
+        }
+
         @Override
         public String getDisplayName() {
             return "Run TICS";
@@ -334,6 +857,7 @@ public class TicsAnalyzer extends Builder implements SimpleBuildStep {
 
         @Override
         public boolean configure(final StaplerRequest staplerRequest, final JSONObject json) throws FormException {
+            setMaxConcurrentAnalyses(json.optInt("maxConcurrentAnalyses", 0));
             save();
             return true; // indicate that everything is good so far
         }
@@ -407,12 +931,7 @@ public class TicsAnalyzer extends Builder implements SimpleBuildStep {
                     return validation.get();
                 }
 
-                validation = ValidationHelper.checkViewerBaseUrlAccessibility(value);
-                if (validation.isPresent()) {
-                    return validation.get();
-                }
-
-                validation = ValidationHelper.checkVersionCompatibility(listener, value);
+                validation = ValidationHelper.checkViewerBaseUrlAccessibilityAndVersion(value);
                 if (validation.isPresent()) {
                     return validation.get();
                 }
@@ -0,0 +1,97 @@
+package hudson.plugins.tics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import hudson.XmlFile;
+import hudson.model.Job;
+import jenkins.model.Jenkins;
+
+/**
+ * The TQI of the runs of the TICS paths of a job, as retrieved from the viewer by {@link TicsHistoryBackfill}.
+ * This gives the trend of a job the history of the project from before the job published TICS results.
+ * <p>
+ * The history is stored in tics-history.xml in the directory of the job. Loaded histories are cached, as the trend of a job
+ * is shown on every page of the job.
+ */
+public final class TicsHistory {
+    private static final Logger LOGGER = Logger.getLogger(TicsHistory.class.getName());
+    private static final String FILE_NAME = "tics-history.xml";
+    /** Histories by directory of their job. The cached instance is the one that is updated and saved by the backfill. */
+    private static final Cache<String, TicsHistory> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(200)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    /** Points per TICS path, ordered by date. */
+    private final Map<String, List<Point>> paths = new TreeMap<>();
+
+    /** The TQI of a single run. */
+    public static final class Point {
+        public final long dateMillis;
+        public final double tqi;
+
+        Point(final long dateMillis, final double tqi) {
+            this.dateMillis = dateMillis;
+            this.tqi = tqi;
+        }
+    }
+
+    /** Returns the history of the given job, which is empty if it was never backfilled. */
+    public static TicsHistory load(final Job<?, ?> job) {
+        try {
+            return CACHE.get(job.getRootDir().getPath(), () -> read(job));
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static TicsHistory read(final Job<?, ?> job) {
+        final TicsHistory out = new TicsHistory();
+        final XmlFile file = getFile(job);
+        if (file.exists()) {
+            try {
+                file.unmarshal(out);
+            } catch (final IOException e) {
+                LOGGER.log(Level.WARNING, "Could not load the TICS history from " + file, e);
+            }
+        }
+        return out;
+    }
+
+    synchronized void save(final Job<?, ?> job) throws IOException {
+        getFile(job).write(this);
+        CACHE.put(job.getRootDir().getPath(), this);
+    }
+
+    private static XmlFile getFile(final Job<?, ?> job) {
+        return new XmlFile(Jenkins.XSTREAM2, new File(job.getRootDir(), FILE_NAME));
+    }
+
+    public synchronized List<Point> getPoints(final String ticsPath) {
+        return Collections.unmodifiableList(new ArrayList<>(paths.getOrDefault(ticsPath, Collections.emptyList())));
+    }
+
+    synchronized boolean contains(final String ticsPath, final long dateMillis) {
+        return paths.getOrDefault(ticsPath, Collections.emptyList()).stream().anyMatch(p -> p.dateMillis == dateMillis);
+    }
+
+    synchronized void add(final String ticsPath, final List<Point> points) {
+        final List<Point> existing = paths.computeIfAbsent(ticsPath, k -> new ArrayList<>());
+        existing.addAll(points);
+        existing.sort(Comparator.comparingLong(p -> p.dateMillis));
+    }
+}
@@ -0,0 +1,214 @@
+package hudson.plugins.tics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+
+import hudson.EnvVars;
+import hudson.model.AbstractProject;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.tics.MeasureApiCall.MeasureApiCallException;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+
+/**
+ * Fills the {@link TicsHistory} of jobs with the TQI of all runs that the viewer has of their TICS paths.
+ * The paths, viewer and credentials of a job are taken from the last build that published TICS results.
+ * Jobs whose credentials are unknown are skipped, see {@link #getCredentialsId(Job, List)}.
+ * <p>
+ * The TQI at the date of a run is the current TQI minus <code>Delta(tqi,date)</code>. The deltas of many runs are retrieved
+ * in a single request. Jobs are backfilled one at a time, with a pause between requests, so that a backfill of all jobs
+ * does not overload the viewer. Runs that are already in the history are not retrieved again, so an interrupted backfill
+ * continues where it stopped.
+ */
+public final class TicsHistoryBackfill {
+    private static final TicsHistoryBackfill INSTANCE = new TicsHistoryBackfill();
+    private static final int BATCH_SIZE = Integer.getInteger(TicsHistoryBackfill.class.getName() + ".batchSize", 50);
+    private static final long REQUEST_DELAY_MS = Long.getLong(TicsHistoryBackfill.class.getName() + ".requestDelay", 1000);
+    private static final int CALL_TIMEOUT_SECONDS = 60;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new NamingThreadFactory(new DaemonThreadFactory(), "TICS history backfill"));
+    /** Tasks by full name of the job, in the order they were started. Guarded by the instance. */
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+
+    /** Progress of the backfill of a single job. */
+    public static final class Task {
+        public final String jobName;
+        private volatile String state = "Queued";
+        private volatile int done;
+        private volatile int total;
+
+        Task(final String jobName) {
+            this.jobName = jobName;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public int getDone() {
+            return done;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        boolean isFinished() {
+            return !"Queued".equals(state) && !"Running".equals(state);
+        }
+    }
+
+    private TicsHistoryBackfill() {
+    }
+
+    public static TicsHistoryBackfill get() {
+        return INSTANCE;
+    }
+
+    public synchronized List<Task> getTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    /** Backfills all jobs that published TICS results. Finding those jobs loads their last builds, so it is done in the background too. */
+    public void backfillAll() {
+        executor.submit(() -> {
+            try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+                for (final Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+                    if (!getLastActions(job).isEmpty()) {
+                        backfill(job);
+                    }
+                }
+            }
+        });
+    }
+
+    /** Backfills the given job, unless it is already being backfilled. */
+    public void backfill(final Job<?, ?> job) {
+        final Task task;
+        synchronized (this) {
+            final Task existing = tasks.get(job.getFullName());
+            if (existing != null && !existing.isFinished()) {
+                return;
+            }
+            task = new Task(job.getFullName());
+            tasks.remove(task.jobName);
+            tasks.put(task.jobName, task);
+        }
+        executor.submit(() -> {
+            task.state = "Running";
+            try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+                task.state = run(job, task);
+            } catch (final InterruptedException e) {
+                task.state = "Interrupted";
+                Thread.currentThread().interrupt();
+            } catch (final MeasureApiCallException | IOException | RuntimeException e) {
+                task.state = "Failed: " + e.getMessage();
+            }
+        });
+    }
+
+    private static List<TicsPublisherBuildAction> getLastActions(final Job<?, ?> job) {
+        for (Run<?, ?> b = job.getLastCompletedBuild(); b != null; b = b.getPreviousCompletedBuild()) {
+            final List<TicsPublisherBuildAction> actions = b.getActions(TicsPublisherBuildAction.class).stream()
+                    .filter(a -> a.ticsPath != null && a.getTiobeWebBaseUrl() != null)
+                    .collect(Collectors.toList());
+            if (!actions.isEmpty()) {
+                return actions;
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /** Backfills the history of the given job, and returns the final state of the task. */
+    static String run(final Job<?, ?> job, final Task task) throws MeasureApiCallException, IOException, InterruptedException {
+        final List<TicsPublisherBuildAction> actions = getLastActions(job);
+        if (actions.isEmpty()) {
+            throw new IllegalStateException("No build of this job published TICS results");
+        }
+        final Optional<String> credentialsId = getCredentialsId(job, actions);
+        if (!credentialsId.isPresent()) {
+            return "Skipped: the credentials of the last publication are unknown, as it is from before they were recorded. Publish again to backfill this job.";
+        }
+        final Optional<Pair<String, String>> credentials = credentialsId.get().isEmpty() ? Optional.empty()
+                : AuthHelper.lookupUsernameAndPasswordFromCredentialsId(job, credentialsId.get(), new EnvVars());
+        final TicsHistory history = TicsHistory.load(job);
+        int total = 0;
+        int done = 0;
+        for (final TicsPublisherBuildAction action : actions) {
+            final MeasureApiCall apiCall = new MeasureApiCall(TaskListener.NULL.getLogger(), ValidationHelper.getMeasureApiUrl(action.getTiobeWebBaseUrl()), credentials);
+            apiCall.setTimeoutSeconds(CALL_TIMEOUT_SECONDS);
+            final MeasureApiSuccessResponse<List<MeasureApiSuccessResponse.Run>> resp = apiCall.execute(MeasureApiCall.RESPONSE_RUNS_TYPETOKEN, action.ticsPath, "runs");
+            final List<Long> dates = resp.data.stream()
+                    .filter(mv -> mv.value != null)
+                    .flatMap(mv -> mv.value.stream())
+                    .map(r -> r.getStarted().getMillis())
+                    .filter(date -> !history.contains(action.ticsPath, date))
+                    .collect(Collectors.toList());
+            total += dates.size();
+            task.total = total;
+            for (final List<Long> batch : Lists.partition(dates, BATCH_SIZE)) {
+                Thread.sleep(REQUEST_DELAY_MS);
+                history.add(action.ticsPath, retrieveTqi(apiCall, action.ticsPath, batch));
+                history.save(job);
+                done += batch.size();
+                task.done = done;
+            }
+        }
+        return "Done";
+    }
+
+    /** Retrieves the TQI at the given dates with a single request. Dates for which the viewer has no TQI are left out. */
+    static List<TicsHistory.Point> retrieveTqi(final MeasureApiCall apiCall, final String ticsPath, final List<Long> dates) throws MeasureApiCallException {
+        final String metrics = "tqi," + dates.stream().map(date -> "Delta(tqi," + (date / 1000L) + ")").collect(Collectors.joining(","));
+        final MeasureApiSuccessResponse<Number> resp = apiCall.execute(MeasureApiCall.RESPONSE_NUMBER_TYPETOKEN, ticsPath, metrics);
+        if (resp.data.size() != dates.size() + 1) {
+            throw new MeasureApiCallException("Expected " + (dates.size() + 1) + " values, but got " + resp.data.size());
+        }
+        final List<TicsHistory.Point> out = new ArrayList<>();
+        final Number current = resp.data.get(0).value;
+        if (current == null) {
+            return out;
+        }
+        for (int i = 0; i < dates.size(); i++) {
+            final Number delta = resp.data.get(i + 1).value;
+            if (delta != null) {
+                out.add(new TicsHistory.Point(dates.get(i), current.doubleValue() - delta.doubleValue()));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the id of the credentials that the last publication used, which is empty if it used none.
+     * For builds from before the id was recorded, the publisher of a freestyle job is used instead. A pipeline does not keep
+     * the credentials of its publish steps, so for those builds the credentials are unknown.
+     */
+    private static Optional<String> getCredentialsId(final Job<?, ?> job, final List<TicsPublisherBuildAction> actions) {
+        final String recorded = actions.get(0).getCredentialsId();
+        if (recorded != null) {
+            return Optional.of(recorded);
+        }
+        if (job instanceof AbstractProject) {
+            final TicsPublisher publisher = ((AbstractProject<?, ?>) job).getPublishersList().get(TicsPublisher.class);
+            return Optional.of(publisher == null ? "" : Strings.nullToEmpty(publisher.getCredentialsId()));
+        }
+        return Optional.empty();
+    }
+}
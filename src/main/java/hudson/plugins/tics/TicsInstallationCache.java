@@ -0,0 +1,279 @@
+package hudson.plugins.tics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Computer;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Cache of TICS installations on an agent, shared by all builds and executors of that agent.
+ * Entries are keyed by TICS Viewer URL and TICS version.
+ * <p>
+ * The install script of the viewer is sourced and sets up the environment for TICSQServer (e.g. PATH).
+ * An entry stores the environment variables that were changed by the install script, so that later builds
+ * can run TICSQServer with that environment instead of running the install script again.
+ * The installation itself is directed to the entry through TICSINSTALLDIR.
+ */
+public class TicsInstallationCache {
+    static final String INSTALL_DIR = "tics";
+    private static final String ENV_FILE = "env.properties";
+    private static final String CHECKSUM_FILE = "env.sha256";
+    private static final String KEY_FILE = "key.txt";
+    private static final String LAST_USED_FILE = "lastUsed";
+    private static final String ENV_BEFORE_FILE = "env.before";
+    private static final String ENV_AFTER_FILE = "env.after";
+    private static final String LOCK_SUFFIX = ".lock";
+    /** Number of most recently used entries that are always kept. */
+    private static final int MAX_ENTRIES = 3;
+    /** Entries beyond {@link #MAX_ENTRIES} are removed once unused for this long. */
+    private static final long MIN_UNUSED_BEFORE_EVICTION_MS = TimeUnit.DAYS.toMillis(1);
+    /** Entries are always removed once unused for this long. */
+    private static final long MAX_UNUSED_MS = TimeUnit.DAYS.toMillis(30);
+    /** Variables that differ for every process, or that must not be stored on disk. */
+    private static final ImmutableSet<String> IGNORED_VARIABLES = ImmutableSet.of("_", "SHLVL", "PWD", "OLDPWD", AuthHelper.TICSAUTHTOKEN);
+
+    private final FilePath root;
+    private final FilePath entry;
+    private final String key;
+
+    public TicsInstallationCache(final FilePath root, final String tiobeWebBaseUrl, final String ticsVersion) {
+        this.root = root;
+        this.key = tiobeWebBaseUrl + " " + ticsVersion;
+        this.entry = root.child(Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString().substring(0, 16));
+    }
+
+    /** Returns the directory in which the agent that hosts the given workspace keeps its TICS caches. */
+    static FilePath getAgentCacheRoot(final FilePath workspace, final String name) {
+        final Computer computer = workspace.toComputer();
+        final Node node = computer == null ? null : computer.getNode();
+        final FilePath nodeRoot = node == null ? null : node.getRootPath();
+        final FilePath base = nodeRoot == null ? workspace.getParent() : nodeRoot;
+        return base.child("tics").child(name);
+    }
+
+    public FilePath getInstallDir() {
+        return entry.child(INSTALL_DIR);
+    }
+
+    FilePath getEnvBeforeFile() {
+        return entry.child(ENV_BEFORE_FILE);
+    }
+
+    FilePath getEnvAfterFile() {
+        return entry.child(ENV_AFTER_FILE);
+    }
+
+    /** Locks the entry, so that concurrent builds on this agent do not install the same version at the same time. */
+    public AgentLock lock(final TaskListener listener) throws IOException, InterruptedException {
+        return AgentLock.acquire(entry.withSuffix(LOCK_SUFFIX), listener, "TICS installation cache");
+    }
+
+    /**
+     * Returns the environment of a complete and intact installation, if any.
+     * An entry that fails the integrity check is removed, so that TICS is installed again.
+     */
+    public Optional<Map<String, String>> load(final boolean isUnix) throws IOException, InterruptedException {
+        final Map<String, String> env = entry.act(new Load(isUnix ? "TICSQServer" : "TICSQServer.exe"));
+        if (env == null) {
+            entry.deleteRecursive();
+            return Optional.empty();
+        }
+        return Optional.of(env);
+    }
+
+    /** Prepares the entry for a new installation. */
+    public void prepare() throws IOException, InterruptedException {
+        entry.deleteRecursive();
+        entry.mkdirs();
+        entry.child(KEY_FILE).write(key, "UTF-8");
+    }
+
+    /** Stores the variables that the install script changed, based on the environment dumps it wrote. */
+    public void store(final boolean isUnix) throws IOException, InterruptedException {
+        entry.act(new Store(isUnix));
+    }
+
+    /** Removes entries that have not been used for a while, except the most recently used ones. */
+    public void prune() throws IOException, InterruptedException {
+        root.act(new Prune());
+    }
+
+    private static void touch(final File file) throws IOException {
+        if (!file.exists()) {
+            Files.write(file.toPath(), new byte[0]);
+        }
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            throw new IOException("Could not update " + file);
+        }
+    }
+
+    private static String sha256(final byte[] bytes) {
+        return Hashing.sha256().hashBytes(bytes).toString();
+    }
+
+    /** Parses an environment dump, written with <code>env -0</code> on Unix or as lines of name=value on Windows. */
+    static Map<String, String> parseEnvDump(final String dump, final boolean isUnix) {
+        final Map<String, String> out = Maps.newLinkedHashMap();
+        final Iterable<String> entries = isUnix
+                ? Splitter.on('\0').omitEmptyStrings().split(dump)
+                : Splitter.onPattern("\r?\n").omitEmptyStrings().split(dump.replace("\uFEFF", ""));
+        for (final String e : entries) {
+            final int index = e.indexOf('=');
+            if (index > 0) {
+                out.put(e.substring(0, index), e.substring(index + 1));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the variables that differ between both environments. A PATH that was extended at the front is
+     * returned as <code>PATH+TICS</code>, so that Jenkins prepends it to the PATH of later builds.
+     */
+    static Map<String, String> diffEnv(final Map<String, String> before, final Map<String, String> after, final String pathSeparator) {
+        final Map<String, String> out = Maps.newTreeMap();
+        for (final Map.Entry<String, String> e : after.entrySet()) {
+            final String name = e.getKey();
+            if (IGNORED_VARIABLES.contains(name) || e.getValue().equals(before.get(name))) {
+                continue;
+            }
+            final String previous = before.get(name);
+            if ("PATH".equalsIgnoreCase(name) && !Strings.isNullOrEmpty(previous) && e.getValue().endsWith(pathSeparator + previous)) {
+                out.put("PATH+TICS", e.getValue().substring(0, e.getValue().length() - previous.length() - pathSeparator.length()));
+            } else {
+                out.put(name, e.getValue());
+            }
+        }
+        return out;
+    }
+
+    private static final class Store extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+        private final boolean isUnix;
+
+        Store(final boolean isUnix) {
+            this.isUnix = isUnix;
+        }
+
+        @Override
+        public Void invoke(final File entry, final VirtualChannel channel) throws IOException {
+            final File beforeFile = new File(entry, ENV_BEFORE_FILE);
+            final File afterFile = new File(entry, ENV_AFTER_FILE);
+            try {
+                final Map<String, String> before = parseEnvDump(new String(Files.readAllBytes(beforeFile.toPath()), StandardCharsets.UTF_8), isUnix);
+                final Map<String, String> after = parseEnvDump(new String(Files.readAllBytes(afterFile.toPath()), StandardCharsets.UTF_8), isUnix);
+                final StringBuilder sb = new StringBuilder();
+                for (final Map.Entry<String, String> e : diffEnv(before, after, File.pathSeparator).entrySet()) {
+                    sb.append(e.getKey()).append('=').append(e.getValue()).append('\0');
+                }
+                final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+                Files.write(new File(entry, ENV_FILE).toPath(), bytes);
+                Files.write(new File(entry, CHECKSUM_FILE).toPath(), sha256(bytes).getBytes(StandardCharsets.UTF_8));
+                touch(new File(entry, LAST_USED_FILE));
+            } finally {
+                // The dumps contain the complete build environment, which should not be kept
+                Files.deleteIfExists(beforeFile.toPath());
+                Files.deleteIfExists(afterFile.toPath());
+            }
+            return null;
+        }
+    }
+
+    private static final class Load extends MasterToSlaveFileCallable<Map<String, String>> {
+        private static final long serialVersionUID = 1L;
+        private final String executable;
+
+        Load(final String executable) {
+            this.executable = executable;
+        }
+
+        /** Returns null if the entry is incomplete or damaged. */
+        @Override
+        public Map<String, String> invoke(final File entry, final VirtualChannel channel) throws IOException {
+            final File envFile = new File(entry, ENV_FILE);
+            final File checksumFile = new File(entry, CHECKSUM_FILE);
+            if (!envFile.isFile() || !checksumFile.isFile()) {
+                return null;
+            }
+            final byte[] bytes = Files.readAllBytes(envFile.toPath());
+            final String checksum = new String(Files.readAllBytes(checksumFile.toPath()), StandardCharsets.UTF_8).trim();
+            if (!checksum.equals(sha256(bytes))) {
+                return null;
+            }
+            final Map<String, String> env = parseEnvDump(new String(bytes, StandardCharsets.UTF_8), true);
+            if (!isExecutableOnPath(env)) {
+                return null;
+            }
+            touch(new File(entry, LAST_USED_FILE));
+            return env;
+        }
+
+        private boolean isExecutableOnPath(final Map<String, String> env) {
+            final String path = Util.fixNull(env.get("PATH+TICS")) + File.pathSeparator
+                    + Util.fixNull(env.get("PATH")) + File.pathSeparator
+                    + Util.fixNull(System.getenv("PATH"));
+            for (final String dir : Splitter.on(File.pathSeparator).omitEmptyStrings().split(path)) {
+                if (new File(dir, executable).isFile()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Prune extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Void invoke(final File root, final VirtualChannel channel) throws IOException {
+            final File[] children = root.listFiles(f -> f.isDirectory() && !f.getName().endsWith(LOCK_SUFFIX));
+            if (children == null) {
+                return null;
+            }
+            final List<File> entries = Arrays.stream(children)
+                    .sorted(Comparator.comparingLong(TicsInstallationCache.Prune::lastUsed).reversed())
+                    .collect(Collectors.toList());
+            final long now = System.currentTimeMillis();
+            for (int i = 0; i < entries.size(); i++) {
+                final File entry = entries.get(i);
+                final long unused = now - lastUsed(entry);
+                final boolean evict = unused > MAX_UNUSED_MS || (i >= MAX_ENTRIES && unused > MIN_UNUSED_BEFORE_EVICTION_MS);
+                final File lockFile = new File(root, entry.getName() + LOCK_SUFFIX);
+                if (evict && AgentLock.tryLock(lockFile)) {
+                    try {
+                        Util.deleteRecursive(entry);
+                    } finally {
+                        AgentLock.unlock(lockFile);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static long lastUsed(final File entry) {
+            final File lastUsed = new File(entry, LAST_USED_FILE);
+            return lastUsed.isFile() ? lastUsed.lastModified() : entry.lastModified();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package hudson.plugins.tics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+import com.google.common.hash.Hashing;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+
+/**
+ * Cache on the controller of the install scripts of TICS Viewers, so that a viewer is asked for its install script
+ * once per TICS version and platform, instead of once by every agent. Agents get the script through a {@link FilePath} copy.
+ * <p>
+ * Scripts are stored by their SHA-256 in JENKINS_HOME/tics/installers. Concurrent requests for the same script share a single download.
+ * Note that the install script itself still downloads the TICS packages from the viewer.
+ */
+public final class TicsInstallerCache {
+    private static final String LOGGING_PREFIX = "[TICS Install] ";
+    /** Install scripts may contain a token of the viewer, so they are fetched again after a while. */
+    private static final long MAX_AGE_MS = Long.getLong(TicsInstallerCache.class.getName() + ".maxAge", TimeUnit.HOURS.toMillis(24));
+    private static final TicsInstallerCache INSTANCE = new TicsInstallerCache(TicsInstallerCache::getDefaultCacheDir);
+
+    private final Map<String, CompletableFuture<CachedInstaller>> installers = new ConcurrentHashMap<>();
+    private final Supplier<File> cacheDir;
+
+    private static final class CachedInstaller {
+        final File file;
+        final long fetchedAtMillis;
+
+        CachedInstaller(final File file) {
+            this.file = file;
+            this.fetchedAtMillis = System.currentTimeMillis();
+        }
+
+        boolean isUsable() {
+            return System.currentTimeMillis() - fetchedAtMillis < MAX_AGE_MS && file.isFile();
+        }
+    }
+
+    private TicsInstallerCache(final Supplier<File> cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /** Creates a cache that stores its scripts in the given directory, for tests. */
+    TicsInstallerCache(final File cacheDir) {
+        this(() -> cacheDir);
+    }
+
+    public static TicsInstallerCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the install script for the given key, downloading it if it is not cached yet.
+     * @param key identifies the script, i.e. the viewer, TICS version and platform
+     * @param installScriptUrl supplies the url of the install script; only called when downloading
+     */
+    public FilePath getInstaller(final String key, final Supplier<String> installScriptUrl, final Optional<Pair<String, String>> credentials, final boolean isUnix, final TaskListener listener) throws IOException, InterruptedException {
+        final CompletableFuture<CachedInstaller> created = new CompletableFuture<>();
+        final CompletableFuture<CachedInstaller> installer = installers.compute(key, (k, existing) -> existing == null || isStale(existing) ? created : existing);
+        if (installer == created) {
+            try {
+                created.complete(download(installScriptUrl.get(), credentials, isUnix, listener));
+            } catch (final RuntimeException | IOException e) {
+                created.completeExceptionally(e);
+                installers.remove(key, created);
+                throw e;
+            }
+        } else if (!installer.isDone()) {
+            listener.getLogger().println(LOGGING_PREFIX + "Waiting for another build that downloads the same install script");
+        }
+
+        try {
+            return new FilePath(installer.get().file);
+        } catch (final ExecutionException e) {
+            throw new IOException(LOGGING_PREFIX + "Downloading the install script failed", e.getCause());
+        }
+    }
+
+    private static boolean isStale(final CompletableFuture<CachedInstaller> installer) {
+        if (!installer.isDone()) {
+            return false;
+        }
+        return installer.isCompletedExceptionally() || !installer.join().isUsable();
+    }
+
+    private CachedInstaller download(final String url, final Optional<Pair<String, String>> credentials, final boolean isUnix, final TaskListener listener) throws IOException {
+        final PrintStream logger = listener.getLogger();
+        logger.println(LOGGING_PREFIX + "Downloading install script to the controller");
+        final byte[] script = new InstallTicsApiCall(url, credentials, listener).downloadInstallScript(url);
+
+        final File dir = cacheDir.get();
+        Files.createDirectories(dir.toPath());
+        final File file = new File(dir, Hashing.sha256().hashBytes(script).toString() + (isUnix ? ".sh" : ".ps1"));
+        if (file.isFile()) {
+            // An unchanged script was downloaded again; it counts as fetched now, so that it is not pruned as stale
+            file.setLastModified(System.currentTimeMillis());
+        } else {
+            final File tmp = File.createTempFile("installer", ".tmp", dir);
+            Files.write(tmp.toPath(), script);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        prune(dir, file);
+        return new CachedInstaller(file);
+    }
+
+    /** Removes scripts that are no longer referenced, except the given one, which is about to be referenced. */
+    private void prune(final File dir, final File keep) {
+        final File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        for (final File file : files) {
+            final boolean referenced = file.equals(keep) || installers.values().stream()
+                    .anyMatch(f -> f.isDone() && !f.isCompletedExceptionally() && f.join().file.equals(file));
+            if (!referenced && now - file.lastModified() > MAX_AGE_MS) {
+                file.delete();
+            }
+        }
+    }
+
+    private static File getDefaultCacheDir() {
+        return new File(new File(Jenkins.get().getRootDir(), "tics"), "installers");
+    }
+}
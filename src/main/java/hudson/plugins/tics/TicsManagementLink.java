@@ -0,0 +1,92 @@
+package hudson.plugins.tics;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.verb.POST;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import hudson.plugins.tics.AnalysisThrottle.ThrottleQueue;
+import hudson.plugins.tics.ViewerHealthMonitor.ViewerHealth;
+import jenkins.model.Jenkins;
+
+/**
+ * Adds a "TICS" page to Manage Jenkins, showing the health of the TICS Viewers used by this controller,
+ * the analyses that are throttled by {@link AnalysisThrottle}, the publications waiting in the {@link PublishSpool},
+ * and the progress of {@link TicsHistoryBackfill}.
+ * See resources/../TicsManagementLink/index.jelly.
+ */
+@Extension
+public class TicsManagementLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "/plugin/tics/tiobe48x48.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "TICS";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Health of the TICS Viewers used by TICS build steps, and analyses waiting for each other.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "tics";
+    }
+
+    @Nonnull
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    /** Referenced in <code>index.jelly</code>. */
+    public List<ViewerHealth> getViewerHealth() {
+        return ViewerHealthMonitor.get().getViewerHealth();
+    }
+
+    /** Referenced in <code>index.jelly</code>. */
+    public List<ThrottleQueue> getThrottleQueues() {
+        return AnalysisThrottle.get().getQueues();
+    }
+
+    /** Referenced in <code>index.jelly</code>. */
+    public int getMaxConcurrentAnalyses() {
+        return TicsAnalyzer.DescriptorImpl.get().getMaxConcurrentAnalyses();
+    }
+
+    /** Referenced in <code>index.jelly</code>. */
+    public List<TicsHistoryBackfill.Task> getBackfillTasks() {
+        return TicsHistoryBackfill.get().getTasks();
+    }
+
+    /** Referenced in <code>index.jelly</code>. */
+    public List<PublishSpool.Entry> getSpooledPublications() {
+        return PublishSpool.get().getEntries();
+    }
+
+    /** Retrieves the TQI history of all jobs that publish TICS results from their viewers, see {@link TicsHistoryBackfill}. */
+    @POST
+    public HttpResponse doBackfillHistory() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        TicsHistoryBackfill.get().backfillAll();
+        return HttpResponses.redirectToDot();
+    }
+
+    /** Probes all viewers now, instead of waiting for the next run of the monitor. */
+    @POST
+    public HttpResponse doCheckNow() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        ViewerHealthMonitor.get().doRun();
+        return HttpResponses.redirectToDot();
+    }
+}
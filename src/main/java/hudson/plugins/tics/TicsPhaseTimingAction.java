@@ -0,0 +1,87 @@
+package hudson.plugins.tics;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import hudson.Util;
+import hudson.model.Action;
+import hudson.model.Run;
+import jenkins.tasks.SimpleBuildStep;
+
+/**
+ * Duration of the phases of a TICSQServer run, as recognized by {@link PhaseTimingParser}.
+ *
+ * Note: the fields of this class are serialized in Jenkins' build.xml files. DO NOT RENAME THEM.
+ */
+public class TicsPhaseTimingAction implements SimpleBuildStep.LastBuildAction {
+    private final Run<?, ?> run;
+    private final List<PhaseTiming> phases;
+
+    public static final class PhaseTiming implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public final String name;
+        public final long startMillis;
+        public final long endMillis;
+
+        public PhaseTiming(final String name, final long startMillis, final long endMillis) {
+            this.name = name;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+
+        public long getDurationMillis() {
+            return endMillis - startMillis;
+        }
+
+        public String getDuration() {
+            return Util.getTimeSpanString(getDurationMillis());
+        }
+    }
+
+    public TicsPhaseTimingAction(final Run<?, ?> run, final List<PhaseTiming> phases) {
+        this.run = run;
+        this.phases = ImmutableList.copyOf(phases);
+    }
+
+    public List<PhaseTiming> getPhases() {
+        return phases;
+    }
+
+    public long getTotalMillis() {
+        return phases.stream().mapToLong(PhaseTiming::getDurationMillis).sum();
+    }
+
+    /** Share of the given phase in the total time, in percent. */
+    public long getPercentage(final PhaseTiming phase) {
+        final long total = getTotalMillis();
+        return total <= 0 ? 0 : Math.round(100.0 * phase.getDurationMillis() / total);
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    @Override
+    public Collection<? extends Action> getProjectActions() {
+        return Collections.singletonList(new TicsPhaseTrendAction(run.getParent()));
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "TICS Analysis Phases";
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package hudson.plugins.tics;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import hudson.Util;
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.plugins.tics.TicsPhaseTimingAction.PhaseTiming;
+
+/**
+ * Shows the duration of the analysis phases of the last builds of a job, so that phases that take increasingly long stand out.
+ */
+public class TicsPhaseTrendAction implements Action {
+    private static final int MAX_BUILDS = 10;
+
+    private final Job<?, ?> job;
+
+    public TicsPhaseTrendAction(final Job<?, ?> job) {
+        this.job = job;
+    }
+
+    /** Returns the phase timings of the last builds that have them, most recent first. */
+    public List<TicsPhaseTimingAction> getBuilds() {
+        final List<TicsPhaseTimingAction> out = Lists.newArrayList();
+        for (Run<?, ?> b = job.getLastBuild(); b != null && out.size() < MAX_BUILDS; b = b.getPreviousBuild()) {
+            final TicsPhaseTimingAction action = b.getAction(TicsPhaseTimingAction.class);
+            if (action != null) {
+                out.add(action);
+            }
+        }
+        return out;
+    }
+
+    /** Returns the names of all phases of {@link #getBuilds()}, in order of first occurrence. */
+    public Set<String> getPhaseNames() {
+        final Set<String> out = Sets.newLinkedHashSet();
+        for (final TicsPhaseTimingAction build : Lists.reverse(getBuilds())) {
+            for (final PhaseTiming phase : build.getPhases()) {
+                out.add(phase.name);
+            }
+        }
+        return out;
+    }
+
+    /** Returns the total duration of the given phase in the given build, or "-" if the build did not have it. */
+    public String getDuration(final TicsPhaseTimingAction build, final String phaseName) {
+        long total = -1;
+        for (final PhaseTiming phase : build.getPhases()) {
+            if (phase.name.equals(phaseName)) {
+                total = Math.max(total, 0) + phase.getDurationMillis();
+            }
+        }
+        return total < 0 ? "-" : Util.getTimeSpanString(total);
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "TICS Analysis Phases";
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+}
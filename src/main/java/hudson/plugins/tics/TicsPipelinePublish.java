@@ -2,6 +2,7 @@ package hudson.plugins.tics;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 import javax.annotation.Nonnull;
 
@@ -9,9 +10,6 @@ import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 
-import com.cloudbees.plugins.credentials.CredentialsProvider;
-import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
-import com.cloudbees.plugins.credentials.domains.DomainRequirement;
 import com.google.common.base.Strings;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
@@ -25,7 +23,6 @@ import hudson.model.TaskListener;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Publisher;
 import hudson.tasks.Recorder;
-import jenkins.model.Jenkins;
 import jenkins.tasks.SimpleBuildStep;
 
 public class TicsPipelinePublish extends Recorder implements SimpleBuildStep {
@@ -35,11 +32,13 @@ public class TicsPipelinePublish extends Recorder implements SimpleBuildStep {
     public String projectName;
     public String branchName;
     public String ticsProjectPath;
+    public List<String> ticsProjectPaths;
     public String userName;
     public String userId;
     public boolean checkQualityGate;
     public boolean failIfQualityGateFails;
     public String credentialsId;
+    public boolean spoolWhenViewerUnavailable;
 
     @DataBoundConstructor
     public TicsPipelinePublish(
@@ -50,22 +49,41 @@ public class TicsPipelinePublish extends Recorder implements SimpleBuildStep {
 
     @Override
     public void perform(@Nonnull final Run<?, ?> run, @Nonnull final FilePath workspace, @NonNull final EnvVars envvars, @Nonnull final Launcher launcher, @Nonnull final TaskListener listener) throws InterruptedException, IOException {
+        if (hasTicsProjectPaths()) {
+            createPublisher().publishAll(run, listener, ticsProjectPaths);
+        } else {
+            createPublisher().perform(run, workspace, envvars, launcher, listener);
+        }
+    }
+
+    /** Checks the parameters, and returns the publisher that does the work. */
+    TicsPublisher createPublisher() {
         if (Strings.isNullOrEmpty(viewerUrl)) {
             throw new IllegalArgumentException("The pipeline method '" + PUBLISH_TICS_RESULTS + "' was used without specifying the 'viewerUrl'. " +
                     "For instance a 'viewerUrl' looks like: 'http://www.company.com:42506/tiobeweb/TICS'.\n");
         }
         if (Strings.isNullOrEmpty(projectName) || Strings.isNullOrEmpty(branchName)) {
-            if (Strings.isNullOrEmpty(ticsProjectPath)) {
+            if (Strings.isNullOrEmpty(ticsProjectPath) && !hasTicsProjectPaths()) {
                 throw new IllegalArgumentException("The pipeline method '" + PUBLISH_TICS_RESULTS + "' was used without specifying the 'projectName' or the 'branchName'.");
             }
         }
 
         final String creds = getCredentials();
-        final TicsPublisher tp = new TicsPublisher(viewerUrl, getTicsProjectPath(), creds, this.checkQualityGate, this.failIfQualityGateFails);
-        tp.perform(run, workspace, envvars, launcher, listener);
+        final TicsPublisher publisher = new TicsPublisher(viewerUrl, getTicsProjectPath(), creds, this.checkQualityGate, this.failIfQualityGateFails);
+        publisher.setSpoolWhenViewerUnavailable(spoolWhenViewerUnavailable);
+        return publisher;
     }
 
+    /** Returns true if several paths are published, which have to be passed to {@link TicsPublisher#publishAll} instead of the single path. */
+    boolean hasTicsProjectPaths() {
+        return ticsProjectPaths != null && !ticsProjectPaths.isEmpty();
+    }
+
+    /** Returns null if several paths are published, so that the publisher cannot publish a single path of them by mistake. */
     private String getTicsProjectPath() {
+        if (hasTicsProjectPaths()) {
+            return null;
+        }
         if (Strings.isNullOrEmpty(ticsProjectPath)) {
             return String.join("/","HIE:/", projectName, branchName);
         } else {
@@ -86,25 +104,15 @@ public class TicsPipelinePublish extends Recorder implements SimpleBuildStep {
             throw new IllegalArgumentException("Please specify either one of the the 'userName' or 'userId' and not both.");
         }
         if (!Strings.isNullOrEmpty(this.userId)) {
-            return findUserCredentials("userId" , this.userId, StandardUsernamePasswordCredentials::getId);
+            return findUserCredentials("userId", this.userId, AuthHelper.findRootUsernamePasswordCredentialsIdById(this.userId));
         } else {
-            return findUserCredentials("userName" , this.userName, StandardUsernamePasswordCredentials::getUsername);
+            return findUserCredentials("userName", this.userName, AuthHelper.findRootUsernamePasswordCredentialsIdByUsername(this.userName));
         }
     }
 
-    private String findUserCredentials(final String targetName, final String targetValue, final java.util.function.Function<StandardUsernamePasswordCredentials, String> func) {
-        final List<StandardUsernamePasswordCredentials> credentialsList = CredentialsProvider.
-                lookupCredentials(
-                        StandardUsernamePasswordCredentials.class,
-                        Jenkins.getInstanceOrNull(),
-                        null,
-                        (DomainRequirement) null);
+    private String findUserCredentials(final String targetName, final String targetValue, final Optional<String> credentialsId) {
         final String exceptionMessage = "No credentials found for " + targetName + ":'" + targetValue + "'" + " in Jenkins credentials store.";
-        final StandardUsernamePasswordCredentials findUserInCredentialsList = credentialsList.stream()
-                .filter(c -> func.apply(c).equals(targetValue))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException(exceptionMessage));
-        return findUserInCredentialsList.getId();
+        return credentialsId.orElseThrow(() -> new RuntimeException(exceptionMessage));
     }
 
     @DataBoundSetter
@@ -122,6 +130,12 @@ public class TicsPipelinePublish extends Recorder implements SimpleBuildStep {
         this.ticsProjectPath = value;
     }
 
+    /** Publishes several paths at once, e.g. one per component, instead of the 'ticsProjectPath'. */
+    @DataBoundSetter
+    public void setTicsProjectPaths(final List<String> value) {
+        this.ticsProjectPaths = value;
+    }
+
     @DataBoundSetter
     public void setUserName(final String value) {
         this.userName = value;
@@ -147,6 +161,12 @@ public class TicsPipelinePublish extends Recorder implements SimpleBuildStep {
         this.credentialsId = value;
     }
 
+    /** See {@link TicsPublisher#setSpoolWhenViewerUnavailable(boolean)}. */
+    @DataBoundSetter
+    public void setSpoolWhenViewerUnavailable(final boolean value) {
+        this.spoolWhenViewerUnavailable = value;
+    }
+
     @Symbol(PUBLISH_TICS_RESULTS) @Extension
     public static class DescriptorImpl extends BuildStepDescriptor<Publisher> {
 
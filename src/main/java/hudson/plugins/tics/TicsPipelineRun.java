@@ -30,7 +30,7 @@ import jenkins.tasks.SimpleBuildStep;
 
 public class TicsPipelineRun extends Builder implements SimpleBuildStep {
 
-    private static final ImmutableSet<String> ALL_METRICS = ImmutableSet.of("ABSTRACTINTERPRETATION",
+    static final ImmutableSet<String> ALL_METRICS = ImmutableSet.of("ABSTRACTINTERPRETATION",
             "ACCUCHANGERATE",
             "ACCUFIXRATE",
             "ACCULINESADDED",
@@ -74,6 +74,16 @@ public class TicsPipelineRun extends Builder implements SimpleBuildStep {
     public LinkedHashMap<String, String> environmentVariables;
     public boolean installTics;
     public String credentialsId;
+    public boolean incrementalAnalysis;
+    public String incrementalGitBase;
+    public int incrementalMaxFiles;
+    public int shardCount;
+    public int shardIndex;
+    public int timeoutMinutes;
+    public int noOutputTimeoutMinutes;
+    public boolean compressedLog;
+    public boolean managedTmpdir;
+    public boolean skipAnalyzedCommits;
 
 
     @DataBoundConstructor
@@ -90,7 +100,10 @@ public class TicsPipelineRun extends Builder implements SimpleBuildStep {
                         @Nonnull final EnvVars envvars,
                         @Nonnull final Launcher launcher,
                         @Nonnull final TaskListener listener) throws IOException, InterruptedException {
+        createAnalyzer().perform(run, workspace, envvars, launcher, listener);
+    }
 
+    TicsAnalyzer createAnalyzer() {
         final boolean createTmpdir = !Strings.isNullOrEmpty(tmpdir);
         final TicsAnalyzer ta = new TicsAnalyzer(
                 ticsBin,
@@ -107,7 +120,17 @@ public class TicsPipelineRun extends Builder implements SimpleBuildStep {
                 installTics,
                 credentialsId
         );
-        ta.perform(run, workspace, envvars, launcher, listener);
+        ta.setIncrementalAnalysis(incrementalAnalysis);
+        ta.setIncrementalGitBase(incrementalGitBase);
+        ta.setIncrementalMaxFiles(incrementalMaxFiles);
+        ta.setShardCount(shardCount);
+        ta.setShardIndex(shardIndex);
+        ta.setTimeoutMinutes(timeoutMinutes);
+        ta.setNoOutputTimeoutMinutes(noOutputTimeoutMinutes);
+        ta.setCompressedLog(compressedLog);
+        ta.setManagedTmpdir(managedTmpdir);
+        ta.setSkipAnalyzedCommits(skipAnalyzedCommits);
+        return ta;
     }
 
     private String convertEnvironmentVariablesToString() {
@@ -209,6 +232,61 @@ public class TicsPipelineRun extends Builder implements SimpleBuildStep {
         this.credentialsId = value;
     }
 
+    @DataBoundSetter
+    public void setIncrementalAnalysis(final boolean value) {
+        this.incrementalAnalysis = value;
+    }
+
+    @DataBoundSetter
+    public void setIncrementalGitBase(final String value) {
+        this.incrementalGitBase = value;
+    }
+
+    @DataBoundSetter
+    public void setIncrementalMaxFiles(final int value) {
+        this.incrementalMaxFiles = value;
+    }
+
+    /**
+     * Splits the analysis into the given number of shards, of which this step analyzes the one at {@link #setShardIndex(int)}.
+     * Sharding is manual: the pipeline starts one step per shard, in parallel branches, followed by a single run that calculates FINALIZE.
+     * All shards of a build should be given the same shard count; a shard that disagrees with the shards that started before it fails.
+     */
+    @DataBoundSetter
+    public void setShardCount(final int value) {
+        this.shardCount = value;
+    }
+
+    @DataBoundSetter
+    public void setShardIndex(final int value) {
+        this.shardIndex = value;
+    }
+
+    @DataBoundSetter
+    public void setTimeoutMinutes(final int value) {
+        this.timeoutMinutes = value;
+    }
+
+    @DataBoundSetter
+    public void setNoOutputTimeoutMinutes(final int value) {
+        this.noOutputTimeoutMinutes = value;
+    }
+
+    @DataBoundSetter
+    public void setCompressedLog(final boolean value) {
+        this.compressedLog = value;
+    }
+
+    @DataBoundSetter
+    public void setManagedTmpdir(final boolean value) {
+        this.managedTmpdir = value;
+    }
+
+    @DataBoundSetter
+    public void setSkipAnalyzedCommits(final boolean value) {
+        this.skipAnalyzedCommits = value;
+    }
+
     @Symbol("runTics") @Extension
     public static class DescriptorImpl extends BuildStepDescriptor<Builder> {
 
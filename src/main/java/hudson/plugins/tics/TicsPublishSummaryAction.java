@@ -0,0 +1,97 @@
+package hudson.plugins.tics;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import hudson.model.Action;
+
+/**
+ * Summary of the results of several TICS paths that were published by one step, see {@link TicsPipelinePublish#setTicsProjectPaths(List)}.
+ * The details of each path are in its {@link TicsPublisherBuildAction}.
+ *
+ * Note: the fields of this class are serialized in Jenkins' build.xml files. DO NOT RENAME THEM.
+ */
+public class TicsPublishSummaryAction implements Action {
+    private final List<PathSummary> paths;
+
+    /** The state of the quality gate of a path. */
+    public enum GateStatus {
+        NOT_CHECKED("-"),
+        PASSED("Passed"),
+        FAILED("Failed"),
+        ERROR("Error");
+
+        private final String label;
+
+        GateStatus(final String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public static final class PathSummary {
+        public final String ticsPath;
+        /** The formatted TQI, or null if there is none. */
+        public final String tqi;
+        public final String letter;
+        /** Why the TQI could not be retrieved, or null if there was no error. */
+        public final String tqiError;
+        public final GateStatus qualityGate;
+        public final String openInViewerUrl;
+
+        PathSummary(final TicsPublisherBuildAction action) {
+            this.ticsPath = action.ticsPath;
+            final MetricData tqiData = action.tqiData;
+            if (tqiData == null || tqiData.runs.isEmpty() || tqiData.runs.get(0).metricValues.isEmpty()) {
+                this.tqi = null;
+                this.letter = null;
+                this.tqiError = tqiData == null ? null : tqiData.errorMessage;
+            } else {
+                // TQI is the first metric of the current run, see TqiPublisherResultBuilder
+                final MetricData.MetricValue value = tqiData.runs.get(0).metricValues.get(0);
+                this.tqi = value.formattedValue;
+                this.letter = value.letter;
+                this.tqiError = null;
+            }
+            final QualityGateData gateData = action.gateData;
+            if (gateData == null) {
+                this.qualityGate = GateStatus.NOT_CHECKED;
+            } else if (gateData.errorMessage != null) {
+                this.qualityGate = GateStatus.ERROR;
+            } else {
+                this.qualityGate = gateData.passed ? GateStatus.PASSED : GateStatus.FAILED;
+            }
+            this.openInViewerUrl = action.getOpenInViewerUrl();
+        }
+    }
+
+    TicsPublishSummaryAction(final List<TicsPublisherBuildAction> actions) {
+        this.paths = actions.stream().map(PathSummary::new).collect(Collectors.toList());
+    }
+
+    public List<PathSummary> getPaths() {
+        return paths;
+    }
+
+    public long getFailedCount() {
+        return paths.stream().filter(p -> p.qualityGate == GateStatus.FAILED).count();
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "TICS Paths";
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+}
@@ -1,16 +1,30 @@
 package hudson.plugins.tics;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.verb.POST;
@@ -26,27 +40,40 @@ import hudson.FilePath;
 import hudson.Launcher;
 import hudson.Util;
 import hudson.model.AbstractProject;
+import hudson.model.Computer;
 import hudson.model.Item;
 import hudson.model.Result;
 import hudson.model.Run;
 import hudson.model.TaskListener;
 import hudson.plugins.tics.MeasureApiCall.MeasureApiCallException;
+import hudson.plugins.tics.ViewerHealthMonitor.ViewerHealth;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.BuildStepMonitor;
 import hudson.tasks.Publisher;
 import hudson.tasks.Recorder;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
+import hudson.util.NamingThreadFactory;
 import jenkins.tasks.SimpleBuildStep;
 import net.sf.json.JSONObject;
 
 public class TicsPublisher extends Recorder implements SimpleBuildStep {
     static final String LOGGING_PREFIX = "[TICS Publisher] ";
+    /** Maximum number of paths whose results are retrieved at the same time, by all builds together. */
+    private static final int MAX_CONCURRENT_PATHS = Integer.getInteger(TicsPublisher.class.getName() + ".maxConcurrentPaths", 8);
+    private static final ExecutorService PATH_EXECUTOR = createExecutor("TICS publisher", MAX_CONCURRENT_PATHS);
+    /** Retrieves quality gates while the TQI is retrieved. Separate from {@link #PATH_EXECUTOR}, whose tasks wait for these. */
+    private static final ExecutorService GATE_EXECUTOR = createExecutor("TICS quality gate", 16);
+    private static final int MAX_PREVIOUS_BUILDS_FOR_GATE_DIFF = 10;
+    /** Time within which both the TQI and the quality gate have to be retrieved. */
+    private static final int PUBLISH_TIMEOUT_SECONDS = Integer.getInteger(TicsPublisher.class.getName() + ".publishTimeout", 300);
     private final String ticsPath;
     private final String viewerUrl;
     private final String credentialsId;
     private final boolean checkQualityGate;
     private final boolean failIfQualityGateFails;
+    private boolean spoolWhenViewerUnavailable;
 
     /**
      * Constructor arguments are injected by Jenkins, using settings stored through config.jelly.
@@ -98,48 +125,288 @@ public class TicsPublisher extends Recorder implements SimpleBuildStep {
         return failIfQualityGateFails;
     }
 
+    /** Referenced in <code>config.jelly</code>. */
+    public boolean getSpoolWhenViewerUnavailable() {
+        return spoolWhenViewerUnavailable;
+    }
+
+    /**
+     * If the viewer is not reachable, the results are not retrieved during the build, but published later by {@link PublishSpool}
+     * once the viewer is reachable again.
+     */
+    @DataBoundSetter
+    public void setSpoolWhenViewerUnavailable(final boolean value) {
+        this.spoolWhenViewerUnavailable = value;
+    }
+
+    /**
+     * Spools the publication of the given paths if spooling is enabled and the viewer is not reachable according to the
+     * {@link ViewerHealthMonitor}. Returns whether it did. A viewer that was not probed recently is assumed to be reachable,
+     * so that the build does not wait for a probe; it was registered by {@link #prepare}, so the monitor probes it next time.
+     */
+    private boolean spoolIfViewerUnavailable(final Run<?, ?> run, final TaskListener listener, final String tiobeWebBaseUrl, final List<String> ticsPaths) throws IOException {
+        if (!spoolWhenViewerUnavailable) {
+            return false;
+        }
+        final Optional<ViewerHealth> health = ViewerHealthMonitor.get().getFreshHealth(tiobeWebBaseUrl);
+        if (!health.isPresent() || health.get().reachable) {
+            return false;
+        }
+        for (final String path : ticsPaths) {
+            PublishSpool.get().add(run, this, tiobeWebBaseUrl, path);
+        }
+        listener.getLogger().println(LOGGING_PREFIX + "The TICS Viewer is not reachable at the moment: " + health.get().errorMessage
+                + ". The results will be added to this build once it is reachable again.");
+        return true;
+    }
+
     @Override
     public void perform(@Nonnull final Run<?, ?> run, @Nonnull final FilePath workspace, @NonNull final EnvVars envvars, @Nonnull final Launcher launcher, @Nonnull final TaskListener listener) throws IOException, RuntimeException, InterruptedException {
-        final Optional<Pair<String, String>> usernameAndPassword = AuthHelper.lookupUsernameAndPasswordFromCredentialsId(run.getParent(), credentialsId, run.getEnvironment(listener));
-        final String ticsPath1 = Util.replaceMacro(Preconditions.checkNotNull(Strings.emptyToNull(this.ticsPath), "Path not specified"), run.getEnvironment(listener));
+        prepare(run, listener).publish(run);
+    }
+
+    /** Resolves the viewer, path and credentials for the given build, without contacting the viewer yet. */
+    Publication prepare(final Run<?, ?> run, final TaskListener listener) throws IOException, InterruptedException {
+        final EnvVars buildEnv = run.getEnvironment(listener);
+        final Optional<Pair<String, String>> usernameAndPassword = AuthHelper.lookupUsernameAndPasswordFromCredentialsId(run.getParent(), credentialsId, buildEnv);
+        final String ticsPath1 = Util.replaceMacro(Preconditions.checkNotNull(Strings.emptyToNull(this.ticsPath), "Path not specified"), buildEnv);
+        final String tiobeWebBaseUrl = resolveTiobeWebBaseUrl(listener);
+        return new Publication(ticsPath1, tiobeWebBaseUrl, usernameAndPassword, listener, null);
+    }
 
-        final String measureApiUrl;
-        final String qualityGateUrl;
+    private String resolveTiobeWebBaseUrl(final TaskListener listener) {
         final String tiobeWebBaseUrl;
         try {
-            measureApiUrl = getResolvedTiobewebBaseUrl() + "/api/public/v1/Measure";
-            qualityGateUrl = getResolvedTiobewebBaseUrl() + "/api/public/v1/QualityGateStatus";
             tiobeWebBaseUrl = getResolvedTiobewebBaseUrl();
         } catch (final InvalidTicsViewerUrl ex) {
             ex.printStackTrace(listener.getLogger());
             throw new IllegalArgumentException(LOGGING_PREFIX + "Invalid TICS Viewer URL", ex);
         }
+        ViewerHealthMonitor.get().registerViewer(tiobeWebBaseUrl);
+        return tiobeWebBaseUrl;
+    }
 
-        final MeasureApiCall measureApiCall = new MeasureApiCall(listener.getLogger(), measureApiUrl, usernameAndPassword);
-        final MetricData tqiData = getTqiMetricData(listener.getLogger(), ticsPath1, measureApiCall);
+    /**
+     * Publishes the results of several paths, instead of the configured path. The data that is needed for every path is
+     * retrieved for all paths at once; the remaining requests of the paths are done concurrently.
+     * Adds a {@link TicsPublisherBuildAction} per path, and a {@link TicsPublishSummaryAction} for all paths.
+     */
+    void publishAll(final Run<?, ?> run, final TaskListener listener, final List<String> ticsPaths) throws IOException, InterruptedException {
+        final PrintStream logger = listener.getLogger();
+        final EnvVars buildEnv = run.getEnvironment(listener);
+        final Optional<Pair<String, String>> usernameAndPassword = AuthHelper.lookupUsernameAndPasswordFromCredentialsId(run.getParent(), credentialsId, buildEnv);
+        final List<String> paths = ticsPaths.stream().map(p -> Util.replaceMacro(p, buildEnv)).collect(Collectors.toList());
+        final String tiobeWebBaseUrl = resolveTiobeWebBaseUrl(listener);
+        if (spoolIfViewerUnavailable(run, listener, tiobeWebBaseUrl, paths)) {
+            return;
+        }
 
-        QualityGateData gateData;
-        if (checkQualityGate) {
-            final QualityGateApiCall qgApiCall = new QualityGateApiCall(qualityGateUrl, ticsPath1, usernameAndPassword, listener);
-            gateData = retrieveQualityGateData(qgApiCall, listener, tiobeWebBaseUrl);
+        List<TqiPublisherResultBuilder.PathData> pathData;
+        try {
+            final MeasureApiCall measureApiCall = new MeasureApiCall(logger, tiobeWebBaseUrl + "/api/public/v1/Measure", usernameAndPassword);
+            pathData = TqiPublisherResultBuilder.fetchBatch(measureApiCall, paths);
+        } catch (final MeasureApiCallException | RuntimeException e) {
+            logger.println(LOGGING_PREFIX + "Could not retrieve the runs of all paths at once, retrieving them per path: " + e.getMessage());
+            pathData = null;
+        }
 
-            if (!gateData.passed && this.failIfQualityGateFails) {
-                run.setResult(Result.FAILURE);
+        final List<TicsPublisherBuildAction> actions = new ArrayList<>();
+        final List<Future<TicsPublisherBuildAction>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < paths.size(); i++) {
+                final Publication publication = new Publication(paths.get(i), tiobeWebBaseUrl, usernameAndPassword, listener, pathData == null ? null : pathData.get(i));
+                futures.add(PATH_EXECUTOR.submit(() -> publication.retrieve(run)));
+            }
+            for (int i = 0; i < paths.size(); i++) {
+                try {
+                    actions.add(futures.get(i).get());
+                } catch (final ExecutionException e) {
+                    // Report the failure for this path only, so that the results of the other paths are still published
+                    logger.println(LOGGING_PREFIX + "Retrieving the results of " + paths.get(i) + " failed: " + Throwables.getStackTraceAsString(e.getCause()));
+                    actions.add(createErrorAction(run, paths.get(i), tiobeWebBaseUrl));
+                }
             }
-        } else {
-            gateData = null;
+        } finally {
+            // Only has an effect if the build was aborted while waiting
+            futures.forEach(f -> f.cancel(true));
         }
 
-        run.addAction(new TicsPublisherBuildAction(run, ticsPath1, tqiData, gateData, tiobeWebBaseUrl));
+        actions.forEach(action -> addResult(run, action));
+        run.addAction(new TicsPublishSummaryAction(actions));
         run.setResult(Result.SUCCESS); // note that: "has no effect when the result is already set and worse than the proposed result"
     }
 
-    private MetricData getTqiMetricData(final PrintStream logger, final String ticsPath1, final MeasureApiCall apiCall) {
-        final TqiPublisherResultBuilder builder = new TqiPublisherResultBuilder(
-                logger,
-                apiCall,
-                ticsPath1
-                );
+    private TicsPublisherBuildAction createErrorAction(final Run<?, ?> run, final String path, final String tiobeWebBaseUrl) {
+        final MetricData tqiData = MetricData.error(path, "There was an error while retrieving metric data. See the build log for more information.");
+        final QualityGateData gateData = checkQualityGate
+                ? QualityGateData.error("There was an error while retrieving the quality gate status. See the build log for more information.")
+                : null;
+        return new TicsPublisherBuildAction(run, path, tqiData, gateData, null, tiobeWebBaseUrl, Strings.nullToEmpty(credentialsId));
+    }
+
+    private static ExecutorService createExecutor(final String name, final int threads) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void addResult(final Run<?, ?> run, final TicsPublisherBuildAction action) {
+        if (action.gateData != null && !action.gateData.passed && failIfQualityGateFails) {
+            run.setResult(Result.FAILURE);
+        }
+        run.addAction(action);
+    }
+
+    /**
+     * Publishes the results of one path. What does not depend on the latest run of the viewer can be retrieved
+     * with {@link #prefetch()} while the analysis is still running, so that only the latest run is queried afterwards.
+     */
+    final class Publication {
+        private final String ticsPath;
+        private final String tiobeWebBaseUrl;
+        private final Optional<Pair<String, String>> usernameAndPassword;
+        private final TaskListener listener;
+        private final MeasureApiCall measureApiCall;
+        private final TqiPublisherResultBuilder resultBuilder;
+        private CompletableFuture<Void> prefetched = CompletableFuture.completedFuture(null);
+
+        private Publication(final String ticsPath, final String tiobeWebBaseUrl, final Optional<Pair<String, String>> usernameAndPassword, final TaskListener listener,
+                final TqiPublisherResultBuilder.PathData pathData) {
+            this.ticsPath = ticsPath;
+            this.tiobeWebBaseUrl = tiobeWebBaseUrl;
+            this.usernameAndPassword = usernameAndPassword;
+            this.listener = listener;
+            this.measureApiCall = new MeasureApiCall(listener.getLogger(), tiobeWebBaseUrl + "/api/public/v1/Measure", usernameAndPassword);
+            this.resultBuilder = new TqiPublisherResultBuilder(listener.getLogger(), measureApiCall, ticsPath, pathData);
+        }
+
+        /** Starts checking the viewer and retrieving the TQI version and baseline in the background. */
+        void prefetch() {
+            prefetched = CompletableFuture.runAsync(() -> {
+                ViewerHealthMonitor.get().getFreshHealth(tiobeWebBaseUrl)
+                        .filter(health -> !health.reachable)
+                        .ifPresent(health -> listener.getLogger().println(LOGGING_PREFIX + "The TICS Viewer is not reachable at the moment: " + health.errorMessage));
+                resultBuilder.prefetch();
+            }, Computer.threadPoolForRemoting);
+        }
+
+        void publish(final Run<?, ?> run) throws IOException, InterruptedException {
+            if (spoolIfViewerUnavailable(run, listener, tiobeWebBaseUrl, Collections.singletonList(ticsPath))) {
+                return;
+            }
+            addResult(run, retrieve(run));
+            run.setResult(Result.SUCCESS); // note that: "has no effect when the result is already set and worse than the proposed result"
+        }
+
+        /**
+         * Retrieves the TQI and the quality gate. They do not depend on each other, so the quality gate is retrieved in the background
+         * while the TQI is retrieved. Both have to complete within {@link #PUBLISH_TIMEOUT_SECONDS}.
+         * Both use one HTTP client, which is closed afterwards, so that a request for the quality gate that did not complete in time is aborted.
+         */
+        TicsPublisherBuildAction retrieve(final Run<?, ?> run) throws InterruptedException {
+            final CloseableHttpClient httpClient = createSharedHttpClient();
+            try {
+                measureApiCall.setSharedHttpClient(httpClient);
+                return retrieve(run, httpClient);
+            } finally {
+                measureApiCall.setSharedHttpClient(null);
+                if (httpClient != null) {
+                    try {
+                        httpClient.close();
+                    } catch (final IOException e) {
+                        listener.getLogger().println(LOGGING_PREFIX + "Could not close the connections to the viewer: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        /** Returns null if no client could be created, in which case every request creates a client of its own, which reports the error. */
+        private CloseableHttpClient createSharedHttpClient() {
+            try {
+                return measureApiCall.createHttpClient();
+            } catch (final GeneralSecurityException | MeasureApiCallException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        private TicsPublisherBuildAction retrieve(final Run<?, ?> run, final CloseableHttpClient httpClient) throws InterruptedException {
+            final long deadlineMillis = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(PUBLISH_TIMEOUT_SECONDS);
+            final Future<QualityGateData> gate;
+            if (checkQualityGate) {
+                final QualityGateApiCall qgApiCall = new QualityGateApiCall(tiobeWebBaseUrl + "/api/public/v1/QualityGateStatus", ticsPath, usernameAndPassword, listener);
+                qgApiCall.setTimeoutSeconds(PUBLISH_TIMEOUT_SECONDS);
+                qgApiCall.setSharedHttpClient(httpClient);
+                gate = GATE_EXECUTOR.submit(() -> retrieveQualityGateData(qgApiCall, listener, tiobeWebBaseUrl));
+            } else {
+                gate = CompletableFuture.completedFuture(null);
+            }
+            try {
+                return retrieveTqiAndAwaitGate(run, gate, deadlineMillis);
+            } finally {
+                // Only has an effect if the gate was not retrieved in time, or the build was aborted
+                gate.cancel(true);
+            }
+        }
+
+        private TicsPublisherBuildAction retrieveTqiAndAwaitGate(final Run<?, ?> run, final Future<QualityGateData> gate, final long deadlineMillis) throws InterruptedException {
+            final PrintStream logger = listener.getLogger();
+            if (!prefetched.isDone()) {
+                logger.println(LOGGING_PREFIX + "Waiting for the retrieval of the TQI version and baseline");
+            }
+            try {
+                prefetched.get();
+            } catch (final ExecutionException e) {
+                // The results are retrieved again below, which reports the error
+                logger.println(LOGGING_PREFIX + "Retrieving the TQI version and baseline failed: " + e.getCause());
+            }
+            measureApiCall.setTimeoutSeconds(getRemainingSeconds(deadlineMillis));
+            final MetricData tqiData = getTqiMetricData(logger, ticsPath, resultBuilder);
+
+            QualityGateData gateData;
+            try {
+                gateData = gate.get(Math.max(0, deadlineMillis - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException e) {
+                logger.println(LOGGING_PREFIX + "The quality gate status was not retrieved within " + PUBLISH_TIMEOUT_SECONDS + " seconds");
+                gateData = QualityGateData.error("The quality gate status was not retrieved in time. See the build log for more information.");
+            } catch (final ExecutionException e) {
+                logger.println(LOGGING_PREFIX + Throwables.getStackTraceAsString(e.getCause()));
+                gateData = QualityGateData.error("There was an error while retrieving the quality gate status. See the build log for more information.");
+            }
+            final QualityGateDiff gateDiff = gateData == null || gateData.apiResponse == null ? null : diffWithPreviousGate(run, ticsPath, gateData.apiResponse);
+            if (gateDiff != null && gateDiff.previousBuildNumber > 0) {
+                // Only the changed conditions are shown, see TicsPublisherBuildAction.isShowAllConditions()
+                gateData = gateData.withoutConditions();
+            }
+            return new TicsPublisherBuildAction(run, ticsPath, tqiData, gateData, gateDiff, tiobeWebBaseUrl, Strings.nullToEmpty(credentialsId));
+        }
+    }
+
+    private static int getRemainingSeconds(final long deadlineMillis) {
+        return (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(deadlineMillis - System.currentTimeMillis()));
+    }
+
+    /** Compares the gate with the gate of the same path in the last of the previous builds that has one. */
+    private static QualityGateDiff diffWithPreviousGate(final Run<?, ?> run, final String ticsPath, final QualityGateApiResponse current) {
+        int searched = 0;
+        for (Run<?, ?> b = run.getPreviousBuild(); b != null && searched < MAX_PREVIOUS_BUILDS_FOR_GATE_DIFF; b = b.getPreviousBuild(), searched++) {
+            for (final TicsPublisherBuildAction action : b.getActions(TicsPublisherBuildAction.class)) {
+                if (!ticsPath.equals(action.ticsPath)) {
+                    continue;
+                }
+                if (action.gateDiff != null && action.gateDiff.conditions != null) {
+                    return QualityGateDiff.compute(current, action.gateDiff.conditions, b.getNumber());
+                }
+                if (action.gateData != null && action.gateData.apiResponse != null) {
+                    // Builds from before the outcome of the conditions was stored in the diff
+                    return QualityGateDiff.compute(current, QualityGateDiff.getConditions(action.gateData.apiResponse), b.getNumber());
+                }
+            }
+        }
+        return QualityGateDiff.compute(current, null, 0);
+    }
+
+    private MetricData getTqiMetricData(final PrintStream logger, final String ticsPath1, final TqiPublisherResultBuilder builder) {
         try {
             return builder.run();
         } catch (final Exception e) {
@@ -211,6 +478,10 @@ public class TicsPublisher extends Recorder implements SimpleBuildStep {
 
         /** Helper method to check whether URL points to a TICS Viewer, in which case it returns Optional.absent(). */
         private static Optional<FormValidation> checkViewerUrlForErrorsCommon(final String url) {
+            return checkViewerUrlForErrorsCommon(url, ValidationHelper.newRemoteCheckDeadline());
+        }
+
+        private static Optional<FormValidation> checkViewerUrlForErrorsCommon(final String url, final long deadline) {
             final Pattern urlPattern = Pattern.compile("[^:/]+://[^/]+/[^/]+/[^/]+/?");
             final String urlErrorExample = "http(s)://hostname/tiobeweb/section/";
 
@@ -224,7 +495,7 @@ public class TicsPublisher extends Recorder implements SimpleBuildStep {
                 return validation;
             }
 
-            validation = ValidationHelper.checkViewerBaseUrlAccessibility(url);
+            validation = ValidationHelper.checkViewerBaseUrlAccessibility(url, deadline);
             if (validation.isPresent()) {
                 return validation;
             }
@@ -268,7 +539,9 @@ public class TicsPublisher extends Recorder implements SimpleBuildStep {
                     return FormValidation.error("Field is required");
                 } else {
                     final Optional<FormValidation> error = checkViewerUrlForErrorsCommon(globalViewerUrl2);
-                    if (error.isPresent()) {
+                    if (error.isPresent() && ValidationHelper.isPending(error.get())) {
+                        return error.get();
+                    } else if (error.isPresent()) {
                         return FormValidation.errorWithMarkup("Global setting (" + globalViewerUrl2 + ") is invalid: " + error.get().getMessage());
                     } else {
                         return FormValidation.okWithMarkup("Using global setting: " + globalViewerUrl2);
@@ -305,7 +578,12 @@ public class TicsPublisher extends Recorder implements SimpleBuildStep {
             }
 
             final String resolvedViewerUrl = Optional.ofNullable(Strings.emptyToNull(viewerUrl)).orElse(Strings.nullToEmpty(globalViewerUrl));
-            if (checkViewerUrlForErrorsCommon(resolvedViewerUrl).isPresent()) {
+            // the viewer and path checks share one deadline, so that validation does not wait for each in turn
+            final long deadline = ValidationHelper.newRemoteCheckDeadline();
+            final Optional<FormValidation> urlError = checkViewerUrlForErrorsCommon(resolvedViewerUrl, deadline);
+            if (urlError.isPresent() && ValidationHelper.isPending(urlError.get())) {
+                return urlError.get();
+            } else if (urlError.isPresent()) {
                 // if an error is present for the URL, do not validate any further
                 return FormValidation.ok();
             }
@@ -314,18 +592,17 @@ public class TicsPublisher extends Recorder implements SimpleBuildStep {
                 if (!Strings.isNullOrEmpty(credentialsId)) {
                     final EnvVars envvars = project.getEnvironment(null, listener);
                     final String measureApiUrl = ValidationHelper.getMeasureApiUrl(ValidationHelper.getTiobewebBaseUrlFromGivenUrl(Util.replaceMacro(resolvedViewerUrl, envvars)));
-                    final PrintStream dummyLogger = new PrintStream(new ByteArrayOutputStream(), false, "UTF-8");
 
                     final Optional<Pair<String, String>> usernameAndPassword = AuthHelper.lookupUsernameAndPasswordFromCredentialsId(project, credentialsId, envvars);
-                    final MeasureApiCall apiCall = new MeasureApiCall(dummyLogger, measureApiUrl, usernameAndPassword);
-                    apiCall.execute(MeasureApiCall.RESPONSE_DOUBLE_TYPETOKEN, Util.replaceMacro(value, envvars), "none");
+                    final Optional<FormValidation> validation = ValidationHelper.checkTicsPathAccessibility(measureApiUrl, Util.replaceMacro(value, envvars), project.getFullName(), usernameAndPassword, deadline);
+                    if (validation.isPresent()) {
+                        return validation.get();
+                    }
                 }
 
                 return FormValidation.ok();
             } catch (final IllegalArgumentException e) {
                 return FormValidation.errorWithMarkup(e.getMessage());
-            } catch (final MeasureApiCallException e) {
-                return FormValidation.errorWithMarkup(e.getMessage());
             } catch (final InvalidTicsViewerUrl e) {
                 return FormValidation.errorWithMarkup(e.getMessage());
             }
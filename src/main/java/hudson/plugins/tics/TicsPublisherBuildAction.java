@@ -5,6 +5,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import org.apache.http.client.utils.URIBuilder;
 import org.joda.time.DateTime;
@@ -36,8 +37,12 @@ public class TicsPublisherBuildAction extends AbstractTicsPublisherAction implem
     private final Run<?, ?> run;
     public final MetricData tqiData;
     public final QualityGateData gateData;
+    /** Null if the quality gate was not checked, or for builds from before the diff was computed. */
+    public final QualityGateDiff gateDiff;
     public final String ticsPath;
     private final String tiobeWebBaseUrl;
+    /** The credentials the results were retrieved with; empty if none were used, or null for builds from before it was stored. */
+    private final String credentialsId;
 
     private final List<TicsPublisherProjectAction> projectActions;
 
@@ -47,15 +52,40 @@ public class TicsPublisherBuildAction extends AbstractTicsPublisherAction implem
             final MetricData tqiData,
             final QualityGateData QualityGateData,
             final String tiobeWebBaseUrl
+    ) {
+        this(run, ticsPath, tqiData, QualityGateData, null, tiobeWebBaseUrl);
+    }
+
+    public TicsPublisherBuildAction(
+            final Run<?, ?> run,
+            final String ticsPath,
+            final MetricData tqiData,
+            final QualityGateData QualityGateData,
+            final QualityGateDiff gateDiff,
+            final String tiobeWebBaseUrl
+    ) {
+        this(run, ticsPath, tqiData, QualityGateData, gateDiff, tiobeWebBaseUrl, null);
+    }
+
+    public TicsPublisherBuildAction(
+            final Run<?, ?> run,
+            final String ticsPath,
+            final MetricData tqiData,
+            final QualityGateData QualityGateData,
+            final QualityGateDiff gateDiff,
+            final String tiobeWebBaseUrl,
+            final String credentialsId
     ) {
         this.run = run;
         this.ticsPath = ticsPath;
         this.tqiData = tqiData;
         this.gateData = QualityGateData;
+        this.gateDiff = gateDiff;
         final List<TicsPublisherProjectAction> actions = new ArrayList<>();
         actions.add(new TicsPublisherProjectAction(run, ticsPath));
         this.projectActions = actions;
         this.tiobeWebBaseUrl = tiobeWebBaseUrl;
+        this.credentialsId = credentialsId;
     }
 
     @Override
@@ -86,6 +116,16 @@ public class TicsPublisherBuildAction extends AbstractTicsPublisherAction implem
     }
 
 
+    /** Returns null for builds from before the base url was stored. */
+    String getTiobeWebBaseUrl() {
+        return tiobeWebBaseUrl;
+    }
+
+    /** Returns null for builds from before the credentials were stored. */
+    String getCredentialsId() {
+        return credentialsId;
+    }
+
     public final String getOpenInViewerUrl() {
         if (this.tqiData == null) {
             return null;
@@ -155,7 +195,21 @@ public class TicsPublisherBuildAction extends AbstractTicsPublisherAction implem
         }
     }
 
+    /**
+     * Returns false if the gate was compared with the gate of a previous build, in which case only the changed conditions
+     * and the counts per gate are shown, instead of every condition. The conditions are then not stored, see {@link QualityGateData#withoutConditions()}.
+     */
+    public boolean isShowAllConditions() {
+        return gateDiff == null || gateDiff.previousBuildNumber == 0;
+    }
+
     public long countConditions(final QualityGateApiResponse.Gate gate, final boolean passed) {
+        if (gateDiff != null) {
+            final Optional<Integer> count = gateDiff.getCount(gate.name, passed);
+            if (count.isPresent()) {
+                return count.get();
+            }
+        }
         return gate.conditions.stream().filter(c -> passed == c.passed).count();
     }
 
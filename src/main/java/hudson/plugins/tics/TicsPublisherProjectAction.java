@@ -1,11 +1,23 @@
 package hudson.plugins.tics;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.joda.time.DateTime;
+
+import com.google.common.base.Strings;
 
 import hudson.model.Run;
 
 public class TicsPublisherProjectAction extends AbstractTicsPublisherAction {
+    private static final int MAX_TREND_BUILDS = 50;
+    private static final Pattern LEADING_NUMBER = Pattern.compile("^\\s*(-?[0-9]+(?:\\.[0-9]+)?)");
+
     public final Run<?, ?> run;
     public final String ticsPath;
 
@@ -42,4 +54,56 @@ public class TicsPublisherProjectAction extends AbstractTicsPublisherAction {
         }
         return null;
     }
+
+    /**
+     * Returns the TQI trend of this path, oldest first: the TQI of the runs of the viewer from before the job published results,
+     * if it was backfilled, see {@link TicsHistoryBackfill}, followed by the TQI that the last builds published.
+     */
+    public List<TicsHistory.Point> getTrend() {
+        final List<TicsHistory.Point> published = new ArrayList<>();
+        int builds = 0;
+        for (Run<?, ?> b = run.getParent().getLastBuild(); b != null && builds < MAX_TREND_BUILDS; b = b.getPreviousBuild(), builds++) {
+            for (final TicsPublisherBuildAction action : b.getActions(TicsPublisherBuildAction.class)) {
+                if (Objects.equals(ticsPath, action.ticsPath)) {
+                    final Optional<Double> tqi = getPublishedTqi(action);
+                    if (tqi.isPresent()) {
+                        published.add(0, new TicsHistory.Point(b.getTimeInMillis(), tqi.get()));
+                    }
+                }
+            }
+        }
+        final long firstPublished = published.isEmpty() ? Long.MAX_VALUE : published.get(0).dateMillis;
+        final List<TicsHistory.Point> out = TicsHistory.load(run.getParent()).getPoints(ticsPath).stream()
+                .filter(p -> p.dateMillis < firstPublished)
+                .collect(Collectors.toList());
+        out.addAll(published);
+        return out;
+    }
+
+    /** Returns a message if the TQI of the last point of the given trend is lower than that of the point before, or null otherwise. */
+    public String getRegression(final List<TicsHistory.Point> trend) {
+        if (trend.size() < 2) {
+            return null;
+        }
+        final TicsHistory.Point previous = trend.get(trend.size() - 2);
+        final TicsHistory.Point last = trend.get(trend.size() - 1);
+        if (last.tqi >= previous.tqi) {
+            return null;
+        }
+        return String.format("TQI dropped from %.2f%% to %.2f%%", previous.tqi, last.tqi);
+    }
+
+    /** The TQI is the first metric of the current run, see {@link TqiPublisherResultBuilder}; its value is only stored formatted. */
+    private static Optional<Double> getPublishedTqi(final TicsPublisherBuildAction action) {
+        final MetricData tqiData = action.tqiData;
+        if (tqiData == null || tqiData.runs.isEmpty() || tqiData.runs.get(0).metricValues.isEmpty()) {
+            return Optional.empty();
+        }
+        final Matcher matcher = LEADING_NUMBER.matcher(Strings.nullToEmpty(tqiData.runs.get(0).metricValues.get(0).formattedValue));
+        return matcher.find() ? Optional.of(Double.parseDouble(matcher.group(1))) : Optional.empty();
+    }
+
+    public String formatHistoryPoint(final TicsHistory.Point point) {
+        return new DateTime(point.dateMillis).toString("YYYY-MM-dd") + ": " + String.format("%.2f%%", point.tqi);
+    }
 }
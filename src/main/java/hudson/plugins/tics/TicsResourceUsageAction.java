@@ -0,0 +1,78 @@
+package hudson.plugins.tics;
+
+import java.io.Serializable;
+
+import hudson.Functions;
+import hudson.Util;
+import hudson.model.Action;
+
+/**
+ * Resource usage of a TICSQServer run, as sampled by {@link AnalysisWatchdog}.
+ *
+ * Note: the fields of this class are serialized in Jenkins' build.xml files. DO NOT RENAME THEM.
+ */
+public class TicsResourceUsageAction implements Action, Serializable {
+    private static final long serialVersionUID = 1L;
+    public final String node;
+    public final long durationMillis;
+    public final long cpuMillis;
+    public final long peakRssBytes;
+    public final long readBytes;
+    public final long writeBytes;
+    public final int processCount;
+    public final int sampleCount;
+    public final String killedReason;
+
+    public TicsResourceUsageAction(final String node, final long durationMillis, final long cpuMillis, final long peakRssBytes,
+            final long readBytes, final long writeBytes, final int processCount, final int sampleCount, final String killedReason) {
+        this.node = node;
+        this.durationMillis = durationMillis;
+        this.cpuMillis = cpuMillis;
+        this.peakRssBytes = peakRssBytes;
+        this.readBytes = readBytes;
+        this.writeBytes = writeBytes;
+        this.processCount = processCount;
+        this.sampleCount = sampleCount;
+        this.killedReason = killedReason;
+    }
+
+    public String getDuration() {
+        return Util.getTimeSpanString(durationMillis);
+    }
+
+    public String getCpuTime() {
+        return Util.getTimeSpanString(cpuMillis);
+    }
+
+    /** Average number of cores used during the analysis. */
+    public String getAverageCores() {
+        return durationMillis <= 0 ? "-" : String.format("%.1f", (double) cpuMillis / durationMillis);
+    }
+
+    public String getPeakRss() {
+        return Functions.humanReadableByteSize(peakRssBytes);
+    }
+
+    public String getRead() {
+        return Functions.humanReadableByteSize(readBytes);
+    }
+
+    public String getWritten() {
+        return Functions.humanReadableByteSize(writeBytes);
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "TICS Resource Usage";
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+}
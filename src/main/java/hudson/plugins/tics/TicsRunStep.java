@@ -0,0 +1,369 @@
+package hudson.plugins.tics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import com.google.common.collect.ImmutableSet;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+/**
+ * The <code>runTicsAnalysis</code> pipeline step. It takes the same parameters as <code>runTics</code>, i.e. {@link TicsPipelineRun},
+ * but waits for its turn, see {@link AnalysisThrottle}, without holding a thread, and then runs the analysis on a thread of its own
+ * instead of a thread of the pipeline. Aborting the build kills the analysis. At most <code>maxConcurrentAnalyses</code> analyses run
+ * at the same time.
+ * <p>
+ * The step is not durable. TICSQServer does not survive a restart of the controller and the step cannot reattach to it,
+ * so after a restart the step fails instead of starting the analysis again.
+ */
+public class TicsRunStep extends Step {
+    public final String projectName;
+    public final String branchName;
+    public List<String> calc;
+    public List<String> recalc;
+    public String ticsBin;
+    public String ticsConfiguration;
+    public String branchDirectory;
+    public String extraArguments;
+    public String tmpdir;
+    public LinkedHashMap<String, String> environmentVariables;
+    public boolean installTics;
+    public String credentialsId;
+    public boolean incrementalAnalysis;
+    public String incrementalGitBase;
+    public int incrementalMaxFiles;
+    public int shardCount;
+    public int shardIndex;
+    public int timeoutMinutes;
+    public int noOutputTimeoutMinutes;
+    public boolean compressedLog;
+    public boolean managedTmpdir;
+    public boolean skipAnalyzedCommits;
+    public TicsPipelinePublish publish;
+
+    @DataBoundConstructor
+    public TicsRunStep(final String projectName, final String branchName) {
+        this.projectName = projectName;
+        this.branchName = branchName;
+    }
+
+    @Override
+    public StepExecution start(final StepContext context) {
+        return new Execution(this, context);
+    }
+
+    TicsPipelineRun toPipelineRun() {
+        final TicsPipelineRun out = new TicsPipelineRun(projectName, branchName);
+        out.setCalc(calc);
+        out.setRecalc(recalc);
+        out.setTicsBin(ticsBin);
+        out.setTicsConfiguration(ticsConfiguration);
+        out.setBranchDirectory(branchDirectory);
+        out.setExtraArguments(extraArguments);
+        out.setTmpdir(tmpdir);
+        out.setEnvironmentVariables(environmentVariables);
+        out.setInstallTics(installTics);
+        out.setCredentialsId(credentialsId);
+        out.setIncrementalAnalysis(incrementalAnalysis);
+        out.setIncrementalGitBase(incrementalGitBase);
+        out.setIncrementalMaxFiles(incrementalMaxFiles);
+        out.setShardCount(shardCount);
+        out.setShardIndex(shardIndex);
+        out.setTimeoutMinutes(timeoutMinutes);
+        out.setNoOutputTimeoutMinutes(noOutputTimeoutMinutes);
+        out.setCompressedLog(compressedLog);
+        out.setManagedTmpdir(managedTmpdir);
+        out.setSkipAnalyzedCommits(skipAnalyzedCommits);
+        return out;
+    }
+
+    /**
+     * Waits for a permit of {@link AnalysisThrottle}, and then runs the analysis on a thread of its own. Interrupting that thread
+     * kills TICSQServer, see {@link AnalysisWatchdog}. The thread waits for TICSQServer on the agent, so the number of threads is bounded,
+     * and further analyses wait for a thread. Nothing is kept when the pipeline is saved, as the analysis is not resumed.
+     */
+    private static final class Execution extends StepExecution {
+        private static final long serialVersionUID = 1L;
+        private static final int MAX_CONCURRENT_ANALYSES = Integer.getInteger(TicsRunStep.class.getName() + ".maxConcurrentAnalyses", 16);
+        private static final ExecutorService EXECUTOR = createExecutor();
+
+        private final transient TicsRunStep step;
+        private transient volatile CompletableFuture<AnalysisThrottle.Permit> permit;
+        private transient volatile long startedMillis;
+        /** The thread of the analysis while it runs. Guarded by the instance. */
+        private transient Thread thread;
+        /** Guarded by the instance. */
+        private transient boolean stopped;
+        /** Set once the context is completed, so that a stopped analysis that fails afterwards does not complete it again. */
+        private transient boolean completed;
+
+        Execution(final TicsRunStep step, final StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            final Run<?, ?> run = getContext().get(Run.class);
+            final TaskListener listener = getContext().get(TaskListener.class);
+            final TicsAnalyzer analyzer = step.toPipelineRun().createAnalyzer();
+            // Checks the parameters of the publication before the analysis
+            final TicsPublisher publisher = step.publish == null ? null : step.publish.createPublisher();
+            permit = AnalysisThrottle.get().acquireAsync(analyzer.getThrottleKey(run.getEnvironment(listener)), listener);
+            // Not called if the wait is cancelled by stop()
+            permit.thenAccept(acquired -> EXECUTOR.execute(() -> analyze(acquired, analyzer, publisher)));
+            return false;
+        }
+
+        private static ExecutorService createExecutor() {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONCURRENT_ANALYSES, MAX_CONCURRENT_ANALYSES, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "TICS analysis"));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
+        private void analyze(final AnalysisThrottle.Permit acquired, final TicsAnalyzer analyzer, final TicsPublisher publisher) {
+            synchronized (this) {
+                if (stopped) {
+                    acquired.close();
+                    return;
+                }
+                thread = Thread.currentThread();
+            }
+            startedMillis = System.currentTimeMillis();
+            final StepContext context = getContext();
+            try (AnalysisThrottle.Permit p = acquired) {
+                final Run<?, ?> run = context.get(Run.class);
+                final TaskListener listener = context.get(TaskListener.class);
+                final Optional<TicsPublisher.Publication> publication = publisher == null || step.publish.hasTicsProjectPaths()
+                        ? Optional.empty()
+                        : Optional.of(publisher.prepare(run, listener));
+                publication.ifPresent(TicsPublisher.Publication::prefetch);
+                analyzer.perform(run, context.get(FilePath.class), context.get(Launcher.class), listener, Optional.of(p));
+                if (publication.isPresent()) {
+                    publication.get().publish(run);
+                } else if (publisher != null) {
+                    publisher.publishAll(run, listener, step.publish.ticsProjectPaths);
+                }
+                if (complete()) {
+                    context.onSuccess(null);
+                }
+            } catch (final Throwable t) {
+                if (complete()) {
+                    context.onFailure(t);
+                }
+            } finally {
+                synchronized (this) {
+                    thread = null;
+                    // Clears an interrupt of stop() that arrived after the analysis, before the thread is reused
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        /** Returns true for the first caller only, which is the one that completes the context. */
+        private synchronized boolean complete() {
+            if (completed) {
+                return false;
+            }
+            completed = true;
+            return true;
+        }
+
+        @Override
+        public void stop(@Nonnull final Throwable cause) {
+            final CompletableFuture<AnalysisThrottle.Permit> waiting = permit;
+            if (waiting != null) {
+                // Gives up the place in the queue; has no effect once the analysis was admitted
+                waiting.cancel(false);
+            }
+            synchronized (this) {
+                stopped = true;
+                if (thread != null) {
+                    thread.interrupt();
+                }
+            }
+            if (complete()) {
+                getContext().onFailure(cause);
+            }
+        }
+
+        /** TICSQServer does not survive a restart of the controller, and the analysis is not started again. */
+        @Override
+        public void onResume() {
+            if (complete()) {
+                getContext().onFailure(new AbortException(TicsAnalyzer.LOGGING_PREFIX + "Jenkins was restarted during the analysis. "
+                        + "The analysis is not started again, as it cannot be resumed after a restart."));
+            }
+        }
+
+        @Override
+        public String getStatus() {
+            final CompletableFuture<AnalysisThrottle.Permit> waiting = permit;
+            if (waiting == null) {
+                return "not running";
+            }
+            if (!waiting.isDone()) {
+                return "waiting for other analyses of the same project";
+            }
+            final long started = startedMillis;
+            return started == 0 ? "waiting for one of " + MAX_CONCURRENT_ANALYSES + " analysis threads" : "analyzing for " + Util.getTimeSpanString(System.currentTimeMillis() - started);
+        }
+    }
+
+    @DataBoundSetter
+    public void setRecalc(final List<String> value) {
+        this.recalc = value;
+    }
+
+    @DataBoundSetter
+    public void setCalc(final List<String> value) {
+        this.calc = value;
+    }
+
+    @DataBoundSetter
+    public void setTicsConfiguration(final String value) {
+        this.ticsConfiguration = value;
+    }
+
+    @DataBoundSetter
+    public void setTicsBin(final String value) {
+        this.ticsBin = value;
+    }
+
+    @DataBoundSetter
+    public void setBranchDirectory(final String value) {
+        this.branchDirectory = value;
+    }
+
+    @DataBoundSetter
+    public void setExtraArguments(final String value) {
+        this.extraArguments = value;
+    }
+
+    @DataBoundSetter
+    public void setTmpdir(final String value) {
+        this.tmpdir = value;
+    }
+
+    @DataBoundSetter
+    public void setEnvironmentVariables(final LinkedHashMap<String, String> value) {
+        this.environmentVariables = value;
+    }
+
+    @DataBoundSetter
+    public void setInstallTics(final boolean value) {
+        this.installTics = value;
+    }
+
+    @DataBoundSetter
+    public void setCredentialsId(final String value) {
+        this.credentialsId = value;
+    }
+
+    @DataBoundSetter
+    public void setIncrementalAnalysis(final boolean value) {
+        this.incrementalAnalysis = value;
+    }
+
+    @DataBoundSetter
+    public void setIncrementalGitBase(final String value) {
+        this.incrementalGitBase = value;
+    }
+
+    @DataBoundSetter
+    public void setIncrementalMaxFiles(final int value) {
+        this.incrementalMaxFiles = value;
+    }
+
+    /** See {@link TicsPipelineRun#setShardCount(int)}. */
+    @DataBoundSetter
+    public void setShardCount(final int value) {
+        this.shardCount = value;
+    }
+
+    @DataBoundSetter
+    public void setShardIndex(final int value) {
+        this.shardIndex = value;
+    }
+
+    @DataBoundSetter
+    public void setTimeoutMinutes(final int value) {
+        this.timeoutMinutes = value;
+    }
+
+    @DataBoundSetter
+    public void setNoOutputTimeoutMinutes(final int value) {
+        this.noOutputTimeoutMinutes = value;
+    }
+
+    @DataBoundSetter
+    public void setCompressedLog(final boolean value) {
+        this.compressedLog = value;
+    }
+
+    @DataBoundSetter
+    public void setManagedTmpdir(final boolean value) {
+        this.managedTmpdir = value;
+    }
+
+    @DataBoundSetter
+    public void setSkipAnalyzedCommits(final boolean value) {
+        this.skipAnalyzedCommits = value;
+    }
+
+    /**
+     * Publishes the results after the analysis, with the parameters of <code>publishTicsResults</code>.
+     * The TQI version and baseline are retrieved while the analysis runs, so that only the new run is queried after it.
+     * If several paths are given with <code>ticsProjectPaths</code>, all of them are published after the analysis.
+     */
+    @DataBoundSetter
+    public void setPublish(final TicsPipelinePublish value) {
+        this.publish = value;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "runTicsAnalysis";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return "Run TICS analysis";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return ImmutableSet.of(Run.class, FilePath.class, EnvVars.class, Launcher.class, TaskListener.class);
+        }
+    }
+}
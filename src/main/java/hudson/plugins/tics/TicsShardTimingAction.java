@@ -0,0 +1,149 @@
+package hudson.plugins.tics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import hudson.Util;
+import hudson.model.Action;
+import hudson.model.Run;
+
+/**
+ * Timing of the shards of a sharded TICS analysis, see {@link TicsPipelineRun#setShardCount(int)}.
+ * All shards that ran as part of a build are recorded in a single action, so that the speedup of running them in parallel can be shown
+ * once every shard has finished.
+ *
+ * Note: the fields of this class are serialized in Jenkins' build.xml files. DO NOT RENAME THEM.
+ */
+public class TicsShardTimingAction implements Action {
+
+    private final List<ShardTiming> shards = new ArrayList<>();
+    /** The number of shards of the build, set by the first shard that starts. Zero for builds that were recorded before it was added. */
+    private int shardCount;
+
+    public static final class ShardTiming {
+        public final int shardIndex;
+        public final int shardCount;
+        public final String node;
+        public final int fileCount;
+        public final long startMillis;
+        public final long endMillis;
+        public final boolean success;
+
+        ShardTiming(final int shardIndex, final int shardCount, final String node, final int fileCount, final long startMillis, final long endMillis, final boolean success) {
+            this.shardIndex = shardIndex;
+            this.shardCount = shardCount;
+            this.node = node;
+            this.fileCount = fileCount;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.success = success;
+        }
+
+        public String getDuration() {
+            return Util.getTimeSpanString(endMillis - startMillis);
+        }
+    }
+
+    /**
+     * Registers a shard that is about to start. Shards are started by the pipeline, not by the plugin, so this fails
+     * if the shard does not agree with the shards that started before it in the same build on the number of shards.
+     */
+    static void start(final Run<?, ?> run, final int shardIndex, final int shardCount) {
+        final TicsShardTimingAction action = getOrAdd(run);
+        synchronized (action.shards) {
+            final int expected = action.getShardCount();
+            if (expected == 0) {
+                action.shardCount = shardCount;
+            } else if (expected != shardCount) {
+                throw new IllegalArgumentException(TicsAnalyzer.LOGGING_PREFIX + "Shard " + (shardIndex + 1) + " has a shard count of " + shardCount
+                        + ", but other shards of this build have a shard count of " + expected + ". All shards of a build should use the same shard count.");
+            }
+        }
+    }
+
+    /** Adds the timing of a shard to the action of the given run. Shards of one build may finish concurrently. */
+    static void record(final Run<?, ?> run, final ShardTiming timing) {
+        final TicsShardTimingAction action = getOrAdd(run);
+        synchronized (action.shards) {
+            action.shards.add(timing);
+        }
+    }
+
+    private static TicsShardTimingAction getOrAdd(final Run<?, ?> run) {
+        synchronized (run) {
+            TicsShardTimingAction action = run.getAction(TicsShardTimingAction.class);
+            if (action == null) {
+                action = new TicsShardTimingAction();
+                run.addAction(action);
+            }
+            return action;
+        }
+    }
+
+    public int getShardCount() {
+        synchronized (shards) {
+            return shardCount > 0 ? shardCount : shards.stream().mapToInt(s -> s.shardCount).max().orElse(0);
+        }
+    }
+
+    /** Returns the number of distinct shards that finished. A shard that was retried is counted once. */
+    public int getFinishedShardCount() {
+        return (int) getShards().stream().mapToInt(s -> s.shardIndex).distinct().count();
+    }
+
+    /** Returns whether every shard of the build has finished. */
+    public boolean isComplete() {
+        final int count = getShardCount();
+        return count > 0 && getFinishedShardCount() == count;
+    }
+
+    public List<ShardTiming> getShards() {
+        synchronized (shards) {
+            return shards.stream()
+                    .sorted(Comparator.comparingInt((ShardTiming s) -> s.shardIndex).thenComparingLong(s -> s.startMillis))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /** Time from the start of the first shard until the end of the last one. */
+    public long getWallClockMillis() {
+        final List<ShardTiming> all = getShards();
+        if (all.isEmpty()) {
+            return 0;
+        }
+        final long start = all.stream().mapToLong(s -> s.startMillis).min().getAsLong();
+        final long end = all.stream().mapToLong(s -> s.endMillis).max().getAsLong();
+        return end - start;
+    }
+
+    public String getWallClock() {
+        return Util.getTimeSpanString(getWallClockMillis());
+    }
+
+    /** Returns how much faster the shards were than running them one after another, or "-" while not all shards have finished. */
+    public String getSpeedup() {
+        final long wallClock = getWallClockMillis();
+        if (wallClock <= 0 || !isComplete()) {
+            return "-";
+        }
+        final long total = getShards().stream().mapToLong(s -> s.endMillis - s.startMillis).sum();
+        return String.format("%.1fx", (double) total / wallClock);
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "TICS Shards";
+    }
+
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+}
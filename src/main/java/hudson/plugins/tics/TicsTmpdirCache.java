@@ -0,0 +1,196 @@
+package hudson.plugins.tics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.google.common.hash.Hashing;
+
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.Util;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+/**
+ * Tmpdirs for TICSQServer that are kept on the agent between builds, so that an analysis can reuse the data of the previous one.
+ * Tmpdirs are keyed by project and branch. Each key has a few slots, so that concurrent builds of the same branch on one agent
+ * do not share a tmpdir; a slot is locked while in use.
+ * <p>
+ * Tmpdirs are removed when unused for too long, and the least recently used ones are removed when all tmpdirs of the agent
+ * together exceed the maximum size.
+ */
+public class TicsTmpdirCache {
+    private static final String LAST_USED_FILE = ".lastUsed";
+    private static final String SIZE_FILE = ".size";
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final int MAX_SLOTS = 4;
+    private static final long MAX_UNUSED_MS = TimeUnit.DAYS.toMillis(Long.getLong(TicsTmpdirCache.class.getName() + ".maxUnusedDays", 14));
+    private static final long MAX_SIZE_BYTES = Long.getLong(TicsTmpdirCache.class.getName() + ".maxSizeMB", 20 * 1024) * 1024 * 1024;
+
+    private final FilePath root;
+    private final String prefix;
+
+    public TicsTmpdirCache(final FilePath root, final String projectName, final String branchName) {
+        this.root = root;
+        this.prefix = Hashing.sha256().hashString(projectName + "\n" + branchName, StandardCharsets.UTF_8).toString().substring(0, 16);
+    }
+
+    /** A locked tmpdir. */
+    public final class Slot {
+        private final FilePath dir;
+        private final AgentLock lock;
+
+        private Slot(final FilePath dir, final AgentLock lock) {
+            this.dir = dir;
+            this.lock = lock;
+        }
+
+        public FilePath getDir() {
+            return dir;
+        }
+
+        /** Records the size of the tmpdir, unlocks it, and evicts tmpdirs if needed. */
+        public void release(final TaskListener listener) throws IOException, InterruptedException {
+            try {
+                dir.act(new Release());
+            } finally {
+                lock.release();
+            }
+            final long evicted = root.act(new Prune());
+            if (evicted > 0) {
+                listener.getLogger().println(TicsAnalyzer.LOGGING_PREFIX + "Removed " + Functions.humanReadableByteSize(evicted) + " of unused tmpdirs from this agent");
+            }
+        }
+    }
+
+    /** Locks a free slot, waiting for the first slot if all are in use, and reports whether it holds data of a previous analysis. */
+    public Slot acquire(final TaskListener listener) throws IOException, InterruptedException {
+        final PrintStream logger = listener.getLogger();
+        int index = -1;
+        AgentLock lock = null;
+        for (int i = 0; i < MAX_SLOTS && lock == null; i++) {
+            lock = AgentLock.tryAcquire(getLockFile(i));
+            index = i;
+        }
+        if (lock == null) {
+            index = 0;
+            lock = AgentLock.acquire(getLockFile(index), listener, "TICS tmpdir");
+        }
+
+        final FilePath dir = root.child(prefix + "-" + index);
+        final long[] previous = dir.act(new Open());
+        if (previous == null) {
+            logger.println(TicsAnalyzer.LOGGING_PREFIX + "Tmpdir cache miss: using new tmpdir " + dir.getRemote());
+        } else {
+            logger.println(TicsAnalyzer.LOGGING_PREFIX + "Tmpdir cache hit: reusing " + Functions.humanReadableByteSize(previous[1]) + " in " + dir.getRemote()
+                    + ", last used " + Util.getTimeSpanString(System.currentTimeMillis() - previous[0]) + " ago");
+        }
+        return new Slot(dir, lock);
+    }
+
+    private FilePath getLockFile(final int index) {
+        return root.child(prefix + "-" + index + LOCK_SUFFIX);
+    }
+
+    private static long lastUsed(final File dir) {
+        final File lastUsed = new File(dir, LAST_USED_FILE);
+        return lastUsed.isFile() ? lastUsed.lastModified() : dir.lastModified();
+    }
+
+    private static long recordedSize(final File dir) {
+        try {
+            return Long.parseLong(new String(Files.readAllBytes(new File(dir, SIZE_FILE).toPath()), StandardCharsets.UTF_8).trim());
+        } catch (final IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void touch(final File file) throws IOException {
+        if (!file.exists()) {
+            Files.write(file.toPath(), new byte[0]);
+        }
+        if (!file.setLastModified(System.currentTimeMillis())) {
+            throw new IOException("Could not update " + file);
+        }
+    }
+
+    /** Creates the tmpdir if needed. Returns the last use and size of the previous analysis, or null if there was none. */
+    private static final class Open extends MasterToSlaveFileCallable<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public long[] invoke(final File dir, final VirtualChannel channel) throws IOException {
+            final long[] out = new File(dir, LAST_USED_FILE).isFile() ? new long[] { lastUsed(dir), recordedSize(dir) } : null;
+            Files.createDirectories(dir.toPath());
+            touch(new File(dir, LAST_USED_FILE));
+            return out;
+        }
+    }
+
+    private static final class Release extends MasterToSlaveFileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Void invoke(final File dir, final VirtualChannel channel) throws IOException {
+            final long[] size = new long[1];
+            Files.walkFileTree(dir.toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                    size[0] += attrs.size();
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            Files.write(new File(dir, SIZE_FILE).toPath(), Long.toString(size[0]).getBytes(StandardCharsets.UTF_8));
+            touch(new File(dir, LAST_USED_FILE));
+            return null;
+        }
+    }
+
+    /** Removes tmpdirs that are unused for too long, and the least recently used ones beyond the maximum size. Returns the number of bytes removed. */
+    private static final class Prune extends MasterToSlaveFileCallable<Long> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Long invoke(final File root, final VirtualChannel channel) throws IOException {
+            final File[] children = root.listFiles(f -> f.isDirectory() && !f.getName().endsWith(LOCK_SUFFIX));
+            if (children == null) {
+                return 0L;
+            }
+            final List<File> dirs = Arrays.stream(children)
+                    .sorted(Comparator.comparingLong(TicsTmpdirCache::lastUsed).reversed())
+                    .collect(Collectors.toList());
+            final long now = System.currentTimeMillis();
+            long kept = 0;
+            long evicted = 0;
+            for (final File dir : dirs) {
+                final long size = recordedSize(dir);
+                final boolean evict = now - lastUsed(dir) > MAX_UNUSED_MS || kept + size > MAX_SIZE_BYTES;
+                final File lockFile = new File(root, dir.getName() + LOCK_SUFFIX);
+                if (evict && AgentLock.tryLock(lockFile)) {
+                    try {
+                        Util.deleteRecursive(dir);
+                    } finally {
+                        AgentLock.unlock(lockFile);
+                    }
+                    evicted += size;
+                } else {
+                    kept += size;
+                }
+            }
+            return evicted;
+        }
+    }
+}
@@ -34,25 +34,74 @@ public class TqiPublisherResultBuilder {
     private final MeasureApiCall measureApiCall;
     private final PrintStream logger;
     private final Supplier<ImmutableList<String>> metrics;
+    private final Supplier<Optional<Baseline>> baseline;
+    private final @Nullable PathData pathData;
 
     public TqiPublisherResultBuilder(
             final PrintStream logger,
             final MeasureApiCall apiCall,
             final String ticsPath
             ) {
+        this(logger, apiCall, ticsPath, null);
+    }
+
+    /** Uses the given data of the path, as retrieved by {@link #fetchBatch(MeasureApiCall, List)}, if not null. */
+    TqiPublisherResultBuilder(
+            final PrintStream logger,
+            final MeasureApiCall apiCall,
+            final String ticsPath,
+            final @Nullable PathData pathData
+            ) {
         this.logger = logger;
         this.ticsPath = ticsPath;
         this.measureApiCall = apiCall;
-        this.metrics = Suppliers.memoize(() -> {
-            final boolean hasSecurity = this.doesTqiVersionIncludeSecurity();
-            return hasSecurity ? METRICS_4_0 : METRICS_3_11;
-        });
+        this.pathData = pathData;
+        this.metrics = pathData == null
+                ? Suppliers.memoize(() -> this.doesTqiVersionIncludeSecurity() ? METRICS_4_0 : METRICS_3_11)
+                : Suppliers.ofInstance(includesSecurity(pathData.tqiVersion) ? METRICS_4_0 : METRICS_3_11);
+        this.baseline = pathData == null
+                ? Suppliers.memoize(this::retrieveBaseline)
+                : Suppliers.ofInstance(getLast(pathData.baselines));
+    }
+
+    /** The data of a path that does not depend on the metrics to show. */
+    static final class PathData {
+        final @Nullable TqiVersion tqiVersion;
+        final List<Run> runs;
+        final List<Baseline> baselines;
+
+        PathData(final @Nullable TqiVersion tqiVersion, final @Nullable List<Run> runs, final @Nullable List<Baseline> baselines) {
+            this.tqiVersion = tqiVersion;
+            this.runs = Optional.ofNullable(runs).orElseGet(ArrayList::new);
+            this.baselines = Optional.ofNullable(baselines).orElseGet(ArrayList::new);
+        }
+    }
+
+    /**
+     * Retrieves the TQI version, runs and baselines of all given paths with one request each, instead of one request per path.
+     * Returns the data in the order of the given paths.
+     */
+    static List<PathData> fetchBatch(final MeasureApiCall apiCall, final List<String> paths) throws MeasureApiCallException {
+        final List<MetricValue<TqiVersion>> versions = apiCall.executeBatch(MeasureApiCall.RESPONSE_TQIVERSION_TYPETOKEN, paths, TQI_VERSION);
+        final List<MetricValue<List<Run>>> runs = apiCall.executeBatch(MeasureApiCall.RESPONSE_RUNS_TYPETOKEN, paths, "runs");
+        final List<MetricValue<List<Baseline>>> baselines = apiCall.executeBatch(MeasureApiCall.RESPONSE_BASELINES_TYPETOKEN, paths, "baselines");
+        final List<PathData> out = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            out.add(new PathData(versions.get(i).value, runs.get(i).value, baselines.get(i).value));
+        }
+        return out;
     }
 
     private String formatDate(final Instant date) {
         return date.toDateTime().toString("YYYY-MM-dd HH:mm:ss");
     }
 
+    /** Retrieves what does not depend on the latest run, i.e. the TQI version and the baseline, so that {@link #run()} does not have to. */
+    public void prefetch() {
+        this.metrics.get();
+        this.baseline.get();
+    }
+
     public @Nullable MetricData run() throws MeasureApiCallException {
         final List<Run> runDatesDesc = getRunDatesDescending();
         if (runDatesDesc.isEmpty()) {
@@ -122,14 +171,17 @@ public class TqiPublisherResultBuilder {
             e.printStackTrace(this.logger);
             return false;
         }
-        if (resp.data.isEmpty() || resp.data.get(0).value == null) {
-            return false;
-        }
-        final TqiVersion tqiVersion = resp.data.get(0).value;
-        return tqiVersion.compareTo(new TqiVersion(4, 0)) >= 0;
+        return !resp.data.isEmpty() && includesSecurity(resp.data.get(0).value);
+    }
+
+    private static boolean includesSecurity(final @Nullable TqiVersion tqiVersion) {
+        return tqiVersion != null && tqiVersion.compareTo(new TqiVersion(4, 0)) >= 0;
     }
 
     private List<Run> getRunDatesDescending() throws MeasureApiCallException {
+        if (pathData != null) {
+            return Lists.reverse(pathData.runs);
+        }
         final MeasureApiSuccessResponse<List<Run>> resp = measureApiCall.execute(MeasureApiCall.RESPONSE_RUNS_TYPETOKEN, TqiPublisherResultBuilder.this.ticsPath, "runs");
         if (resp.data.isEmpty()) {
             return new ArrayList<Run>();
@@ -138,28 +190,27 @@ public class TqiPublisherResultBuilder {
         return Lists.reverse(Optional.ofNullable(mv.value).orElseGet(ArrayList::new));
     }
 
-    private final Supplier<Optional<Baseline>> baseline = Suppliers.memoize(new Supplier<Optional<Baseline>>() {
-        @Override
-        public Optional<Baseline> get() {
-            final MeasureApiSuccessResponse<List<Baseline>> resp;
-            try {
-                resp = measureApiCall.execute(MeasureApiCall.RESPONSE_BASELINES_TYPETOKEN, ticsPath, "baselines");
-            } catch (final MeasureApiCallException e) {
-                e.printStackTrace(logger);
-                return Optional.empty();
-            }
-            if (resp.data.isEmpty()) {
-                return Optional.empty();
-            }
-            final MetricValue<List<Baseline>> mv = resp.data.get(0);
-            final List<Baseline> baselines = mv.value;
-            if (baselines == null || baselines.isEmpty()) {
-                return Optional.empty();
-            } else {
-                return Optional.of(baselines.get(baselines.size()-1));
-            }
+    private Optional<Baseline> retrieveBaseline() {
+        final MeasureApiSuccessResponse<List<Baseline>> resp;
+        try {
+            resp = measureApiCall.execute(MeasureApiCall.RESPONSE_BASELINES_TYPETOKEN, ticsPath, "baselines");
+        } catch (final MeasureApiCallException e) {
+            e.printStackTrace(logger);
+            return Optional.empty();
         }
-    });
+        if (resp.data.isEmpty()) {
+            return Optional.empty();
+        }
+        return getLast(resp.data.get(0).value);
+    }
+
+    private static Optional<Baseline> getLast(final @Nullable List<Baseline> baselines) {
+        if (baselines == null || baselines.isEmpty()) {
+            return Optional.empty();
+        } else {
+            return Optional.of(baselines.get(baselines.size()-1));
+        }
+    }
 
 
 }
@@ -4,28 +4,44 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.client.utils.URIBuilder;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 import com.google.common.primitives.Ints;
 
-import hudson.model.TaskListener;
 import hudson.plugins.tics.MeasureApiCall.MeasureApiCallException;
 import hudson.plugins.tics.TicsPublisher.InvalidTicsViewerUrl;
+import hudson.plugins.tics.ViewerHealthMonitor.ViewerHealth;
+import hudson.util.DaemonThreadFactory;
 import hudson.util.FormValidation;
+import hudson.util.NamingThreadFactory;
 
 /**
  * Helper methods to be used in TICSAnalyzer and TICSPublisher for viewer url validation or formatting.
@@ -33,6 +49,26 @@ import hudson.util.FormValidation;
  */
 public class ValidationHelper {
 
+    /** Returned while a remote check is still running. */
+    private static final FormValidation PENDING = FormValidation.warning("Checking connection to the TICS Viewer\u2026 Validate again in a few seconds to see the result.");
+
+    /** Timeout of the HTTP calls made for form validation, instead of the 300 seconds that are used during builds. */
+    private static final int REMOTE_CHECK_TIMEOUT_SECONDS = 10;
+
+    /** Maximum time a form validation request waits for its remote checks. */
+    private static final long REMOTE_CHECK_DEADLINE_MILLIS = 2000;
+
+    /**
+     * Results of remote checks, shared by all form fields and kept for a short while, as validation fires on every field change.
+     * Running checks are cached as well, so that repeated validation does not start a new call to the viewer.
+     */
+    private static final Cache<String, CompletableFuture<Optional<FormValidation>>> REMOTE_CHECKS = CacheBuilder.newBuilder()
+            .maximumSize(500)
+            .expireAfterWrite(60, TimeUnit.SECONDS)
+            .build();
+
+    private static final ExecutorService REMOTE_CHECK_EXECUTOR = createRemoteCheckExecutor();
+
     public static Optional<FormValidation> checkViewerUrlIsEmpty(final String url) {
         if (Strings.isNullOrEmpty(url)) {
             return Optional.of(FormValidation.error("Field is required"));
@@ -51,47 +87,175 @@ public class ValidationHelper {
     }
 
     public static Optional<FormValidation> checkViewerBaseUrlAccessibility(final String url) {
+        return checkViewerBaseUrlAccessibility(url, newRemoteCheckDeadline());
+    }
+
+    /**
+     * As {@link #checkViewerBaseUrlAccessibility(String)}, but waits only until the given deadline,
+     * so that several checks of one validation request can share a single deadline.
+     */
+    public static Optional<FormValidation> checkViewerBaseUrlAccessibility(final String url, final long deadline) {
+        return awaitRemoteChecks(ImmutableList.of(viewerBaseUrlAccessibilityCheck(url)), deadline);
+    }
+
+    public static Optional<FormValidation> checkVersionCompatibility(final String url) {
+        return awaitRemoteChecks(ImmutableList.of(versionCompatibilityCheck(url)), newRemoteCheckDeadline());
+    }
+
+    /**
+     * Checks accessibility and version of the viewer concurrently. An accessibility error takes precedence over a version error.
+     */
+    public static Optional<FormValidation> checkViewerBaseUrlAccessibilityAndVersion(final String url) {
+        return awaitRemoteChecks(ImmutableList.of(viewerBaseUrlAccessibilityCheck(url), versionCompatibilityCheck(url)), newRemoteCheckDeadline());
+    }
+
+    /**
+     * Checks whether the given TICS path can be queried through the Measure API with the given credentials.
+     * The cached result is keyed on a hash of the resolved username and password and on the full name of the item
+     * they were resolved for, so that the secret itself is not kept and a result is not shared between identities.
+     */
+    public static Optional<FormValidation> checkTicsPathAccessibility(final String measureApiUrl, final String ticsPath, final String itemFullName, final Optional<Pair<String, String>> credentials, final long deadline) {
+        final String identity = Hashing.sha256().hashString(credentials.map(c -> c.getLeft() + "\0" + c.getRight()).orElse(""), StandardCharsets.UTF_8).toString();
+        final String key = "path|" + measureApiUrl + "|" + ticsPath + "|" + Strings.nullToEmpty(itemFullName) + "|" + identity;
+        return awaitRemoteChecks(ImmutableList.of(remoteCheck(key, () -> {
+            try {
+                final MeasureApiCall apiCall = new MeasureApiCall(createDummyLogger(), measureApiUrl, credentials);
+                apiCall.setTimeoutSeconds(REMOTE_CHECK_TIMEOUT_SECONDS);
+                apiCall.execute(MeasureApiCall.RESPONSE_DOUBLE_TYPETOKEN, ticsPath, "none");
+                return Optional.empty();
+            } catch (final MeasureApiCallException e) {
+                return Optional.of(FormValidation.errorWithMarkup(e.getMessage()));
+            }
+        })), deadline);
+    }
+
+    /** Returns the deadline until which a form validation request that starts now waits for its remote checks. */
+    public static long newRemoteCheckDeadline() {
+        return System.currentTimeMillis() + REMOTE_CHECK_DEADLINE_MILLIS;
+    }
+
+    /** Returns true if the given validation only reports that a remote check is still running. */
+    public static boolean isPending(final FormValidation validation) {
+        return validation == PENDING;
+    }
+
+    /** Returns the health of the viewer of the given URL as last probed by {@link ViewerHealthMonitor}, if recent. */
+    private static Optional<ViewerHealth> getFreshHealth(final String url) {
         try {
-            final String measureApiUrl = getMeasureApiUrl(getTiobewebBaseUrlFromGivenUrl(url));
-            final PrintStream dummyLogger = new PrintStream(new ByteArrayOutputStream(), false, "UTF-8");
-            final MeasureApiCall apiCall = new MeasureApiCall(dummyLogger, measureApiUrl, Optional.empty());
-            apiCall.execute(MeasureApiCall.RESPONSE_DOUBLE_TYPETOKEN, "HIE://", "none");
-            return Optional.empty();
-        } catch (final MeasureApiCallException | UnsupportedEncodingException e) {
-            return Optional.of(FormValidation.errorWithMarkup(e.getMessage()));
+            return ViewerHealthMonitor.get().getFreshHealth(getTiobewebBaseUrlFromGivenUrl(url));
         } catch (final InvalidTicsViewerUrl e) {
-            return Optional.of(FormValidation.errorWithMarkup(e.getMessage()));
+            return Optional.empty();
         }
     }
 
-    public static Optional<FormValidation> checkVersionCompatibility(final TaskListener listener, final String url) {
-        try {
-            final String ticsversionApi = getTiobewebBaseUrlFromGivenUrl(url) + "/api/v1/version";
-            final PrintStream dummyLogger = new PrintStream(new ByteArrayOutputStream(), false, "UTF-8");
-            final TicsVersionApiCall ticsVersionApiCall = new TicsVersionApiCall(ticsversionApi, Optional.empty(), dummyLogger);
-            final String actualVersion = ticsVersionApiCall.retrieveTicsVersion();
+    private static CompletableFuture<Optional<FormValidation>> viewerBaseUrlAccessibilityCheck(final String url) {
+        final Optional<ViewerHealth> health = getFreshHealth(url);
+        if (health.isPresent()) {
+            return CompletableFuture.completedFuture(health.get().reachable
+                    ? Optional.empty()
+                    : Optional.of(FormValidation.errorWithMarkup(Strings.nullToEmpty(health.get().errorMessage))));
+        }
+        return remoteCheck("measure|" + url, () -> {
+            try {
+                final String measureApiUrl = getMeasureApiUrl(getTiobewebBaseUrlFromGivenUrl(url));
+                final MeasureApiCall apiCall = new MeasureApiCall(createDummyLogger(), measureApiUrl, Optional.empty());
+                apiCall.setTimeoutSeconds(REMOTE_CHECK_TIMEOUT_SECONDS);
+                apiCall.execute(MeasureApiCall.RESPONSE_DOUBLE_TYPETOKEN, "HIE://", "none");
+                return Optional.empty();
+            } catch (final MeasureApiCallException e) {
+                return Optional.of(FormValidation.errorWithMarkup(e.getMessage()));
+            } catch (final InvalidTicsViewerUrl e) {
+                return Optional.of(FormValidation.errorWithMarkup(e.getMessage()));
+            }
+        });
+    }
 
-            if (Strings.isNullOrEmpty(actualVersion)) {
+    private static CompletableFuture<Optional<FormValidation>> versionCompatibilityCheck(final String url) {
+        final Optional<ViewerHealth> health = getFreshHealth(url);
+        if (health.isPresent() && health.get().version != null) {
+            return CompletableFuture.completedFuture(checkVersionIsSupported(health.get().version));
+        }
+        return remoteCheck("version|" + url, () -> {
+            final String actualVersion;
+            try {
+                final String ticsversionApi = getTiobewebBaseUrlFromGivenUrl(url) + "/api/v1/version";
+                final TicsVersionApiCall ticsVersionApiCall = new TicsVersionApiCall(ticsversionApi, Optional.empty(), createDummyLogger());
+                ticsVersionApiCall.setTimeoutSeconds(REMOTE_CHECK_TIMEOUT_SECONDS);
+                actualVersion = ticsVersionApiCall.retrieveTicsVersion();
+            } catch (final InvalidTicsViewerUrl | RuntimeException e) {
+                // Connection problems are reported by the accessibility check
                 return Optional.empty();
             }
+            return checkVersionIsSupported(actualVersion);
+        });
+    }
+
+    private static Optional<FormValidation> checkVersionIsSupported(final String actualVersion) {
+        if (Strings.isNullOrEmpty(actualVersion)) {
+            return Optional.empty();
+        }
 
-            final String expectedVersion = "2021.4";
-            final List<Integer> expectedVParts = parseVersion(expectedVersion);
-            final List<Integer> actualVParts = parseVersion(actualVersion);
+        final String expectedVersion = "2021.4";
+        final List<Integer> expectedVParts = parseVersion(expectedVersion);
+        final List<Integer> actualVParts = parseVersion(actualVersion);
 
-            if (compareVersions(expectedVParts, actualVParts) > 0) {
-                return Optional.of(FormValidation.errorWithMarkup("The feature is not supported for version " + actualVersion + ". It is only available from version 2021.4.x and above."));
-            }
+        if (compareVersions(expectedVParts, actualVParts) > 0) {
+            return Optional.of(FormValidation.errorWithMarkup("The feature is not supported for version " + actualVersion + ". It is only available from version 2021.4.x and above."));
+        }
+        return Optional.empty();
+    }
 
-        } catch (InvalidTicsViewerUrl e) {
-            FormValidation.errorWithMarkup(e.getMessage());
-        } catch (UnsupportedEncodingException e) {
-            FormValidation.errorWithMarkup(e.getMessage());
+    /**
+     * Starts the given check in the background, unless a result or a running check for the same key is cached.
+     */
+    private static CompletableFuture<Optional<FormValidation>> remoteCheck(final String key, final Supplier<Optional<FormValidation>> check) {
+        try {
+            return REMOTE_CHECKS.get(key, () -> CompletableFuture.supplyAsync(check, REMOTE_CHECK_EXECUTOR));
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
         }
+    }
 
+    /**
+     * Waits for the given checks until a shared deadline and returns the first failing one, in the given order.
+     * If a check did not finish in time a "checking" warning is returned. The check continues in the background,
+     * so that its result is available from the cache when the field is validated again.
+     */
+    private static Optional<FormValidation> awaitRemoteChecks(final List<CompletableFuture<Optional<FormValidation>>> checks, final long deadline) {
+        for (final CompletableFuture<Optional<FormValidation>> check : checks) {
+            final Optional<FormValidation> result;
+            try {
+                result = check.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException e) {
+                return Optional.of(PENDING);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.of(PENDING);
+            } catch (final ExecutionException e) {
+                return Optional.of(FormValidation.error(e.getCause(), "Could not validate the TICS Viewer URL"));
+            }
+            if (result.isPresent()) {
+                return result;
+            }
+        }
         return Optional.empty();
     }
-    
+
+    private static PrintStream createDummyLogger() {
+        try {
+            return new PrintStream(new ByteArrayOutputStream(), false, "UTF-8");
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ExecutorService createRemoteCheckExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "TICS Viewer validation"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private static int compareVersions(final List<Integer> base, final List<Integer> other) {
         return ComparisonChain.start()
                 .compare(base.get(0), other.get(0))
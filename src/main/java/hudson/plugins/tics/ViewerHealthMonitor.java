@@ -0,0 +1,196 @@
+package hudson.plugins.tics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.joda.time.Instant;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Sets;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.AbstractProject;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Project;
+import hudson.model.TaskListener;
+import hudson.plugins.tics.MeasureApiCall.MeasureApiCallException;
+import hudson.plugins.tics.TicsPublisher.InvalidTicsViewerUrl;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.model.Jenkins;
+
+/**
+ * Periodically probes all TICS Viewers that are referenced by {@link TicsPublisher} and {@link TicsAnalyzer} configurations,
+ * or that were used by a build recently. Form validation reads the resulting snapshot instead of calling the viewer.
+ */
+@Extension
+public class ViewerHealthMonitor extends AsyncPeriodicWork {
+    private static final String LOGGING_PREFIX = "[TICS Viewer Health] ";
+    private static final long RECURRENCE_PERIOD_MS = Long.getLong(ViewerHealthMonitor.class.getName() + ".recurrencePeriod", TimeUnit.MINUTES.toMillis(5));
+    /** Viewers that are only known from builds are forgotten when no build used them for this long. */
+    private static final long REGISTRATION_EXPIRY_MS = TimeUnit.DAYS.toMillis(7);
+    private static final int PROBE_TIMEOUT_SECONDS = 10;
+
+    /** Latest health per tiobeweb base URL. */
+    private final Map<String, ViewerHealth> snapshot = new ConcurrentHashMap<>();
+    /** Tiobeweb base URLs used by builds, e.g. from pipelines, with the time they were last used. */
+    private final Map<String, Long> registeredViewers = new ConcurrentHashMap<>();
+
+    /** Result of a single probe of a viewer. */
+    public static final class ViewerHealth {
+        public final String tiobeWebBaseUrl;
+        public final boolean reachable;
+        public final long latencyMillis;
+        public final String version;
+        public final String proxyRoute;
+        public final String errorMessage;
+        public final long checkedAtMillis;
+
+        ViewerHealth(final String tiobeWebBaseUrl, final boolean reachable, final long latencyMillis, final String version, final String proxyRoute, final String errorMessage) {
+            this.tiobeWebBaseUrl = tiobeWebBaseUrl;
+            this.reachable = reachable;
+            this.latencyMillis = latencyMillis;
+            this.version = version;
+            this.proxyRoute = proxyRoute;
+            this.errorMessage = errorMessage;
+            this.checkedAtMillis = System.currentTimeMillis();
+        }
+
+        /** A result is fresh if it was produced by one of the last two runs of the monitor. */
+        public boolean isFresh() {
+            return System.currentTimeMillis() - checkedAtMillis < 2 * RECURRENCE_PERIOD_MS;
+        }
+
+        public String getCheckedAt() {
+            return new Instant(checkedAtMillis).toDateTime().toString("YYYY-MM-dd HH:mm:ss");
+        }
+    }
+
+    public ViewerHealthMonitor() {
+        super("TICS Viewer health monitor");
+    }
+
+    public static ViewerHealthMonitor get() {
+        return ExtensionList.lookupSingleton(ViewerHealthMonitor.class);
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return RECURRENCE_PERIOD_MS;
+    }
+
+    /** Makes sure the given viewer is probed, also if it does not occur in a job configuration. */
+    public void registerViewer(final String tiobeWebBaseUrl) {
+        registeredViewers.put(tiobeWebBaseUrl, System.currentTimeMillis());
+    }
+
+    /** Returns the latest health of the given viewer, if it was probed recently. */
+    public Optional<ViewerHealth> getFreshHealth(final String tiobeWebBaseUrl) {
+        return Optional.ofNullable(snapshot.get(tiobeWebBaseUrl)).filter(ViewerHealth::isFresh);
+    }
+
+    public List<ViewerHealth> getViewerHealth() {
+        return snapshot.values().stream()
+                .sorted(Comparator.comparing(h -> h.tiobeWebBaseUrl))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    protected void execute(final TaskListener listener) throws IOException, InterruptedException {
+        final long now = System.currentTimeMillis();
+        registeredViewers.values().removeIf(lastUsed -> now - lastUsed > REGISTRATION_EXPIRY_MS);
+
+        final Set<String> viewers = Sets.newTreeSet(registeredViewers.keySet());
+        try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+            viewers.addAll(getConfiguredViewers());
+        }
+        snapshot.keySet().retainAll(viewers);
+
+        for (final String viewer : viewers) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            final ViewerHealth health = probe(viewer);
+            snapshot.put(viewer, health);
+            listener.getLogger().println(LOGGING_PREFIX + viewer + ": " + (health.reachable ? "reachable" : "unreachable")
+                    + " in " + health.latencyMillis + " ms via " + health.proxyRoute
+                    + (health.version == null ? "" : ", version " + health.version)
+                    + (health.errorMessage == null ? "" : ", " + health.errorMessage));
+        }
+    }
+
+    private static Set<String> getConfiguredViewers() {
+        final Set<String> out = Sets.newTreeSet();
+        addViewer(out, Jenkins.get().getDescriptorByType(TicsPublisher.DescriptorImpl.class).getViewerUrl());
+        for (final AbstractProject<?, ?> project : Jenkins.get().allItems(AbstractProject.class)) {
+            final TicsPublisher publisher = project.getPublishersList().get(TicsPublisher.class);
+            if (publisher != null) {
+                addViewer(out, publisher.getViewerUrl());
+            }
+            if (project instanceof Project) {
+                final TicsAnalyzer analyzer = ((Project<?, ?>) project).getBuildersList().get(TicsAnalyzer.class);
+                if (analyzer != null && Strings.nullToEmpty(analyzer.ticsConfiguration).matches("^[^:/]+://.*")) {
+                    addViewer(out, analyzer.ticsConfiguration);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static void addViewer(final Set<String> out, final String url) {
+        // URLs containing build variables can only be resolved during a build, which registers them
+        if (Strings.isNullOrEmpty(url) || url.contains("$")) {
+            return;
+        }
+        try {
+            out.add(ValidationHelper.getTiobewebBaseUrlFromGivenUrl(url));
+        } catch (final InvalidTicsViewerUrl e) {
+            // Reported by form validation
+        }
+    }
+
+    static ViewerHealth probe(final String tiobeWebBaseUrl) {
+        final PrintStream dummyLogger;
+        try {
+            dummyLogger = new PrintStream(new ByteArrayOutputStream(), false, "UTF-8");
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        final MeasureApiCall measureApiCall = new MeasureApiCall(dummyLogger, ValidationHelper.getMeasureApiUrl(tiobeWebBaseUrl), Optional.empty());
+        measureApiCall.setTimeoutSeconds(PROBE_TIMEOUT_SECONDS);
+        final String proxyRoute = measureApiCall.getProxyRoute();
+
+        final long start = System.nanoTime();
+        try {
+            measureApiCall.execute(MeasureApiCall.RESPONSE_DOUBLE_TYPETOKEN, "HIE://", "none");
+        } catch (final MeasureApiCallException | RuntimeException e) {
+            return new ViewerHealth(tiobeWebBaseUrl, false, elapsedMillis(start), null, proxyRoute, e.getMessage());
+        }
+        final long latencyMillis = elapsedMillis(start);
+
+        String version;
+        try {
+            final TicsVersionApiCall versionApiCall = new TicsVersionApiCall(tiobeWebBaseUrl + "/api/v1/version", Optional.empty(), dummyLogger);
+            versionApiCall.setTimeoutSeconds(PROBE_TIMEOUT_SECONDS);
+            version = versionApiCall.retrieveTicsVersion();
+        } catch (final RuntimeException e) {
+            // Older viewers do not provide the version API
+            version = null;
+        }
+        return new ViewerHealth(tiobeWebBaseUrl, true, latencyMillis, version, proxyRoute, null);
+    }
+
+    private static long elapsedMillis(final long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,216 @@
+package hudson.plugins.tics;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.tics.TicsPublisher.InvalidTicsViewerUrl;
+import jenkins.model.Jenkins;
+
+/**
+ * The <code>waitForTicsQualityGate</code> pipeline step. Waits until the quality gate of a project and branch reflects a run
+ * that started after the build started, and returns whether the gate passed. See {@link QualityGateWaiter}.
+ * <p>
+ * The step does not need a node, so it can be used outside of a <code>node</code> block to not hold an executor while waiting.
+ */
+public class WaitForQualityGateStep extends Step {
+    private static final String WAIT_FOR_TICS_QUALITY_GATE = "waitForTicsQualityGate";
+    private static final int DEFAULT_TIMEOUT_MINUTES = 30;
+
+    public String viewerUrl;
+    public String projectName;
+    public String branchName;
+    public String ticsProjectPath;
+    public String credentialsId;
+    public int timeoutMinutes = DEFAULT_TIMEOUT_MINUTES;
+    public boolean failIfQualityGateFails;
+
+    @DataBoundConstructor
+    public WaitForQualityGateStep() {
+    }
+
+    @Override
+    public StepExecution start(final StepContext context) throws Exception {
+        final String url = Strings.isNullOrEmpty(viewerUrl) ? Jenkins.get().getDescriptorByType(TicsPublisher.DescriptorImpl.class).getViewerUrl() : viewerUrl;
+        final String tiobeWebBaseUrl;
+        try {
+            tiobeWebBaseUrl = ValidationHelper.getTiobewebBaseUrlFromGivenUrl(Strings.nullToEmpty(url));
+        } catch (final InvalidTicsViewerUrl e) {
+            throw new IllegalArgumentException("The pipeline method '" + WAIT_FOR_TICS_QUALITY_GATE + "' needs a valid 'viewerUrl': " + e.getMessage(), e);
+        }
+        final String ticsPath = getTicsProjectPath();
+        if (!ticsPath.matches("^[^:/]+://[^/]+/.+$")) {
+            throw new IllegalArgumentException("The pipeline method '" + WAIT_FOR_TICS_QUALITY_GATE + "' needs the 'projectName' and 'branchName', or a 'ticsProjectPath' like HIE://project/branch.");
+        }
+        final Run<?, ?> run = context.get(Run.class);
+        final long sinceMillis = run.getStartTimeInMillis();
+        final long deadlineMillis = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(timeoutMinutes > 0 ? timeoutMinutes : DEFAULT_TIMEOUT_MINUTES);
+        return new Execution(context, tiobeWebBaseUrl, ticsPath, credentialsId, sinceMillis, deadlineMillis, failIfQualityGateFails);
+    }
+
+    private String getTicsProjectPath() {
+        if (!Strings.isNullOrEmpty(ticsProjectPath)) {
+            return ticsProjectPath;
+        }
+        return String.join("/", "HIE:/", Strings.nullToEmpty(projectName), Strings.nullToEmpty(branchName));
+    }
+
+    private static final class Execution extends StepExecution {
+        private static final long serialVersionUID = 1L;
+        private final String tiobeWebBaseUrl;
+        private final String ticsPath;
+        private final String credentialsId;
+        private final long sinceMillis;
+        private final long deadlineMillis;
+        private final boolean failIfQualityGateFails;
+        private transient volatile CompletableFuture<QualityGateData> gate;
+
+        Execution(final StepContext context, final String tiobeWebBaseUrl, final String ticsPath, final String credentialsId, final long sinceMillis, final long deadlineMillis,
+                final boolean failIfQualityGateFails) {
+            super(context);
+            this.tiobeWebBaseUrl = tiobeWebBaseUrl;
+            this.ticsPath = ticsPath;
+            this.credentialsId = credentialsId;
+            this.sinceMillis = sinceMillis;
+            this.deadlineMillis = deadlineMillis;
+            this.failIfQualityGateFails = failIfQualityGateFails;
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            final TaskListener listener = getContext().get(TaskListener.class);
+            listener.getLogger().println(TicsPublisher.LOGGING_PREFIX + "Waiting for the quality gate of " + ticsPath + " to reflect a run of this build");
+            await();
+            return false;
+        }
+
+        private void await() throws IOException, InterruptedException {
+            final StepContext context = getContext();
+            final Run<?, ?> run = context.get(Run.class);
+            final TaskListener listener = context.get(TaskListener.class);
+            final Optional<Pair<String, String>> credentials = AuthHelper.lookupUsernameAndPasswordFromCredentialsId(run.getParent(), credentialsId, run.getEnvironment(listener));
+            gate = QualityGateWaiter.get().await(tiobeWebBaseUrl, ticsPath, credentialsId, credentials, sinceMillis, deadlineMillis);
+            gate.whenComplete((gateData, error) -> {
+                if (error != null) {
+                    context.onFailure(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                    return;
+                }
+                final boolean passed = gateData.passed;
+                final PrintStream logger = listener.getLogger();
+                if (gateData.apiResponse == null) {
+                    logger.println(TicsPublisher.LOGGING_PREFIX + "The viewer returned no quality gate for " + ticsPath);
+                } else {
+                    final String encodedQualityGateViewerUrl = tiobeWebBaseUrl + "/" + gateData.apiResponse.url.replace("(", "%28").replace(")", "%29");
+                    logger.println(TicsPublisher.LOGGING_PREFIX + "Quality Gate " + (passed ? "passed" : "failed")
+                            + ". Please check the following url for more information: " + encodedQualityGateViewerUrl);
+                }
+                if (!passed && failIfQualityGateFails) {
+                    context.onFailure(new AbortException(TicsPublisher.LOGGING_PREFIX + "The quality gate of " + ticsPath + " failed"));
+                    return;
+                }
+                context.onSuccess(passed);
+            });
+        }
+
+        @Override
+        public void stop(@Nonnull final Throwable cause) {
+            final CompletableFuture<QualityGateData> waiting = gate;
+            if (waiting != null) {
+                QualityGateWaiter.get().cancel(waiting);
+            }
+            getContext().onFailure(cause);
+        }
+
+        /** Polls are not persisted, so waiting starts again after a restart, with the original deadline. */
+        @Override
+        public void onResume() {
+            try {
+                await();
+            } catch (final IOException | InterruptedException e) {
+                getContext().onFailure(e);
+            }
+        }
+
+        @Override
+        public String getStatus() {
+            return "waiting for the quality gate of " + ticsPath;
+        }
+    }
+
+    /** If no viewer url is given, the global viewer url of the TICS publisher is used. */
+    @DataBoundSetter
+    public void setViewerUrl(final String value) {
+        this.viewerUrl = value;
+    }
+
+    @DataBoundSetter
+    public void setProjectName(final String value) {
+        this.projectName = value;
+    }
+
+    @DataBoundSetter
+    public void setBranchName(final String value) {
+        this.branchName = value;
+    }
+
+    @DataBoundSetter
+    public void setTicsProjectPath(final String value) {
+        this.ticsProjectPath = value;
+    }
+
+    @DataBoundSetter
+    public void setCredentialsId(final String value) {
+        this.credentialsId = value;
+    }
+
+    @DataBoundSetter
+    public void setTimeoutMinutes(final int value) {
+        this.timeoutMinutes = value;
+    }
+
+    @DataBoundSetter
+    public void setFailIfQualityGateFails(final boolean value) {
+        this.failIfQualityGateFails = value;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return WAIT_FOR_TICS_QUALITY_GATE;
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return "Wait for the TICS quality gate";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return ImmutableSet.of(Run.class, TaskListener.class);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+
+public class AgentLockTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testLockIsExclusiveUntilReleased() throws Exception {
+        final FilePath lockFile = new FilePath(new File(tmp.getRoot(), "entry.lock"));
+
+        final AgentLock first = AgentLock.tryAcquire(lockFile);
+        assertNotNull(first);
+        assertNull(AgentLock.tryAcquire(lockFile));
+
+        first.release();
+        final AgentLock second = AgentLock.tryAcquire(lockFile);
+        assertNotNull(second);
+        second.release();
+        // The lock file is kept, see AgentLock
+        assertTrue(lockFile.exists());
+    }
+
+    @Test
+    public void testWaitingBuildGetsTheLockOnceReleased() throws Exception {
+        final FilePath lockFile = new FilePath(new File(tmp.getRoot(), "entry.lock"));
+        final AgentLock first = AgentLock.tryAcquire(lockFile);
+
+        final CompletableFuture<AgentLock> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return AgentLock.acquire(lockFile, TaskListener.NULL, "test");
+            } catch (final Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(500);
+        assertFalse(second.isDone());
+
+        first.release();
+        second.get(30, TimeUnit.SECONDS).release();
+    }
+
+    @Test
+    public void testLockDirectoryOfAnEarlierVersionIsReplaced() throws Exception {
+        final File lockDir = tmp.newFolder("entry.lock");
+
+        final AgentLock lock = AgentLock.tryAcquire(new FilePath(lockDir));
+        assertNotNull(lock);
+        assertTrue(lockDir.isFile());
+        lock.release();
+    }
+}
@@ -0,0 +1,93 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hudson.FilePath;
+import hudson.Launcher;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+
+public class AnalysisProcessTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static AnalysisProcess process(final String script) {
+        return new AnalysisProcess(Arrays.asList("sh", "-c", script), Collections.emptyMap(), 0, 0, "");
+    }
+
+    /** Runs the process with a compressed log, and returns the console output followed by the contents of the log. */
+    private String[] executeWithLog(final AnalysisProcess process, final int expectedExitCode) throws Exception {
+        final ByteArrayOutputStream console = new ByteArrayOutputStream();
+        final File logFile = tmp.newFile("tics-analysis.log.gz");
+        final AnalysisProcess.Result result;
+        try (OutputStream log = new GZIPOutputStream(new FileOutputStream(logFile))) {
+            result = process.execute(new Launcher.LocalLauncher(TaskListener.NULL), null, new StreamTaskListener(console, StandardCharsets.UTF_8), log);
+        }
+        assertEquals(expectedExitCode, result.exitCode);
+        try (InputStream in = new GZIPInputStream(new FileInputStream(logFile))) {
+            final String log = IOUtils.toString(in, StandardCharsets.UTF_8);
+            assertEquals(log.length(), result.totalBytes);
+            return new String[] { console.toString("UTF-8"), log };
+        }
+    }
+
+    @Test
+    public void testCompleteOutputIsInTheLogAndOnlyWarningsOnTheConsole() throws Exception {
+        final String[] output = executeWithLog(process("echo first; echo WARNING: second; echo third"), 0);
+
+        assertEquals("first\nWARNING: second\nthird\n", output[1]);
+        assertEquals("WARNING: second\n", output[0]);
+    }
+
+    @Test
+    public void testLastLinesOfTheLogAreOnTheConsoleWhenTheAnalysisFails() throws Exception {
+        final String[] output = executeWithLog(process("echo first; echo second; exit 2"), 2);
+
+        assertTrue(output[0], output[0].contains("Last lines of the output of TICSQServer"));
+        assertTrue(output[0], output[0].contains("first\nsecond\n"));
+        assertFalse(output[1].contains("Last lines"));
+    }
+
+    @Test
+    public void testExecutableIsResolvedInThePathOfTheBuild() throws Exception {
+        final File bin = tmp.newFolder("bin");
+        final File executable = new File(bin, "TICSQServer");
+        assertTrue(executable.createNewFile());
+        assertTrue(executable.setExecutable(true));
+        final String path = tmp.newFolder("empty").getPath() + File.pathSeparator + bin.getPath();
+
+        assertEquals(Optional.of(executable.getPath()), AnalysisProcess.resolveExecutable(FilePath.localChannel, "TICSQServer", path));
+        assertEquals(Optional.of(executable.getPath()), AnalysisProcess.resolveExecutable(FilePath.localChannel, executable.getPath(), null));
+    }
+
+    @Test
+    public void testExecutableThatIsNotInThePathIsNotResolved() throws Exception {
+        final File bin = tmp.newFolder("bin");
+        // Not executable, so the shell would not run it either
+        assertTrue(new File(bin, "TICSQServer").createNewFile());
+
+        assertEquals(Optional.empty(), AnalysisProcess.resolveExecutable(FilePath.localChannel, "TICSQServer", bin.getPath()));
+        assertEquals(Optional.empty(), AnalysisProcess.resolveExecutable(FilePath.localChannel, "TICSQServer", null));
+    }
+}
@@ -0,0 +1,118 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.TaskListener;
+import hudson.plugins.tics.AnalysisThrottle.Permit;
+
+public class AnalysisThrottleTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public TestName name = new TestName();
+
+    private final AnalysisThrottle throttle = AnalysisThrottle.get();
+    /** The queues are kept for the lifetime of the controller, so every test uses a key of its own. */
+    private String key;
+
+    @Before
+    public void setUp() {
+        key = AnalysisThrottle.getKey("http://viewer/tiobeweb/TICS", name.getMethodName());
+        TicsAnalyzer.DescriptorImpl.get().setMaxConcurrentAnalyses(1);
+    }
+
+    @Test
+    public void testWaitingAnalysesAreAdmittedInOrderOfArrival() throws Exception {
+        final Permit first = throttle.acquire(key, TaskListener.NULL);
+        final CompletableFuture<Permit> second = throttle.acquireAsync(key, TaskListener.NULL);
+        final CompletableFuture<Permit> third = throttle.acquireAsync(key, TaskListener.NULL);
+        assertFalse(second.isDone());
+        assertFalse(third.isDone());
+        assertEquals(2, getQueue().getWaiting());
+
+        first.close();
+        assertTrue(second.isDone());
+        assertFalse(third.isDone());
+
+        second.join().close();
+        assertTrue(third.isDone());
+        third.join().close();
+        assertEquals(0, getQueue().getRunning());
+        assertEquals(2, getQueue().getWaitCount());
+    }
+
+    @Test
+    public void testCancelledAnalysisGivesUpItsPlace() throws Exception {
+        final Permit first = throttle.acquire(key, TaskListener.NULL);
+        final CompletableFuture<Permit> second = throttle.acquireAsync(key, TaskListener.NULL);
+        final CompletableFuture<Permit> third = throttle.acquireAsync(key, TaskListener.NULL);
+
+        second.cancel(false);
+        assertEquals(1, getQueue().getWaiting());
+
+        first.close();
+        assertTrue(third.isDone());
+        assertEquals(1, getQueue().getRunning());
+    }
+
+    @Test
+    public void testClosingTwiceReleasesOnce() throws Exception {
+        final Permit first = throttle.acquire(key, TaskListener.NULL);
+        final CompletableFuture<Permit> second = throttle.acquireAsync(key, TaskListener.NULL);
+        final CompletableFuture<Permit> third = throttle.acquireAsync(key, TaskListener.NULL);
+
+        first.close();
+        first.close();
+        assertTrue(second.isDone());
+        assertFalse(third.isDone());
+    }
+
+    @Test
+    public void testRaisingTheLimitAdmitsWaitingAnalyses() throws Exception {
+        throttle.acquire(key, TaskListener.NULL);
+        final CompletableFuture<Permit> second = throttle.acquireAsync(key, TaskListener.NULL);
+        assertFalse(second.isDone());
+
+        TicsAnalyzer.DescriptorImpl.get().setMaxConcurrentAnalyses(2);
+        assertTrue(second.isDone());
+    }
+
+    @Test
+    public void testInterruptedAnalysisGivesUpItsPlace() throws Exception {
+        final Permit first = throttle.acquire(key, TaskListener.NULL);
+        final Thread waiting = new Thread(() -> {
+            try {
+                throttle.acquire(key, TaskListener.NULL);
+            } catch (final InterruptedException e) {
+                // Expected
+            }
+        });
+        waiting.start();
+        while (getQueue().getWaiting() == 0) {
+            Thread.sleep(10);
+        }
+        waiting.interrupt();
+        waiting.join(5000);
+
+        assertFalse(waiting.isAlive());
+        assertEquals(0, getQueue().getWaiting());
+        first.close();
+        assertEquals(0, getQueue().getRunning());
+    }
+
+    private AnalysisThrottle.ThrottleQueue getQueue() {
+        return throttle.getQueues().stream().filter(q -> q.getKey().equals(key)).findFirst().get();
+    }
+}
@@ -0,0 +1,55 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import hudson.Launcher;
+import hudson.Proc;
+import hudson.model.TaskListener;
+
+public class AnalysisWatchdogTest {
+
+    private static Proc launch(final AnalysisWatchdog watchdog, final String... cmds) throws Exception {
+        final Launcher launcher = new Launcher.LocalLauncher(TaskListener.NULL);
+        return launcher.launch().cmds(cmds).stdout(watchdog.watch(new ByteArrayOutputStream())).start();
+    }
+
+    @Test
+    public void testAnalysisIsKilledWhenItDoesNotFinishInTime() throws Exception {
+        final AnalysisWatchdog watchdog = new AnalysisWatchdog(2000L, 0L, TaskListener.NULL);
+        final Proc proc = launch(watchdog, "sleep", "60");
+
+        final long start = System.currentTimeMillis();
+        watchdog.join(proc, null);
+
+        assertTrue(System.currentTimeMillis() - start < 30000);
+        assertFalse(proc.isAlive());
+        assertTrue(watchdog.getKilledReason(), watchdog.getKilledReason().contains("did not finish"));
+    }
+
+    @Test
+    public void testAnalysisIsKilledWhenItStopsProducingOutput() throws Exception {
+        final AnalysisWatchdog watchdog = new AnalysisWatchdog(0L, 2000L, TaskListener.NULL);
+        final Proc proc = launch(watchdog, "sh", "-c", "echo started; sleep 60");
+
+        watchdog.join(proc, null);
+
+        assertFalse(proc.isAlive());
+        assertTrue(watchdog.getKilledReason(), watchdog.getKilledReason().contains("did not produce output"));
+    }
+
+    @Test
+    public void testAnalysisThatFinishesInTimeIsNotKilled() throws Exception {
+        final AnalysisWatchdog watchdog = new AnalysisWatchdog(30000L, 30000L, TaskListener.NULL);
+        final Proc proc = launch(watchdog, "sh", "-c", "exit 3");
+
+        assertEquals(3, watchdog.join(proc, null));
+        assertNull(watchdog.getKilledReason());
+    }
+}
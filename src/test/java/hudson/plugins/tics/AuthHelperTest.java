@@ -0,0 +1,57 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Optional;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+
+import hudson.EnvVars;
+import hudson.model.FreeStyleProject;
+
+public class AuthHelperTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testChangedCredentialsAreUsedOnceTheStoreIsSaved() throws Exception {
+        final FreeStyleProject project = j.createFreeStyleProject();
+        final SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials().add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "viewer", null, "alice", "first"));
+        store.save();
+        assertEquals(Optional.of(Pair.of("alice", "first")), AuthHelper.lookupUsernameAndPasswordFromCredentialsId(project, "viewer", new EnvVars()));
+
+        // Not saved yet, so the lookup is still served from the index
+        store.getCredentials().clear();
+        store.getCredentials().add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "viewer", null, "alice", "second"));
+        assertEquals(Optional.of(Pair.of("alice", "first")), AuthHelper.lookupUsernameAndPasswordFromCredentialsId(project, "viewer", new EnvVars()));
+
+        // Saving the store drops the index, so the new password is used without waiting for the index to expire
+        store.save();
+        assertEquals(Optional.of(Pair.of("alice", "second")), AuthHelper.lookupUsernameAndPasswordFromCredentialsId(project, "viewer", new EnvVars()));
+    }
+
+    @Test
+    public void testRootCredentialsAreFoundByIdAndByFirstUsername() throws Exception {
+        final SystemCredentialsProvider store = SystemCredentialsProvider.getInstance();
+        store.getCredentials().add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "viewer-1", null, "alice", "first"));
+        store.getCredentials().add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "viewer-2", null, "alice", "second"));
+        store.save();
+
+        assertEquals(Optional.of("viewer-2"), AuthHelper.findRootUsernamePasswordCredentialsIdById("viewer-2"));
+        assertEquals(Optional.of("viewer-1"), AuthHelper.findRootUsernamePasswordCredentialsIdByUsername("alice"));
+        assertEquals(Optional.empty(), AuthHelper.findRootUsernamePasswordCredentialsIdByUsername("bob"));
+
+        store.getCredentials().add(new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL, "viewer-3", null, "bob", "third"));
+        store.save();
+        assertEquals(Optional.of("viewer-3"), AuthHelper.findRootUsernamePasswordCredentialsIdByUsername("bob"));
+    }
+}
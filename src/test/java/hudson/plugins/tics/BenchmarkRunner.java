@@ -0,0 +1,28 @@
+package hudson.plugins.tics;
+
+import org.junit.Test;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all JMH benchmarks of this package. Only run by the 'benchmark' profile: mvn test -P benchmark
+ * The name does not end with Test, so that it is not run with the other tests.
+ */
+public class BenchmarkRunner {
+
+    @Test
+    public void runBenchmarks() throws Exception {
+        final Options options = new OptionsBuilder()
+                .include(BenchmarkRunner.class.getPackage().getName() + "\\..*Benchmark")
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .forks(1)
+                .shouldFailOnError(true)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.resultFile", "target/jmh-report.json"))
+                .build();
+        new Runner(options).run();
+    }
+}
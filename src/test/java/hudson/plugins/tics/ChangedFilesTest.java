@@ -0,0 +1,48 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+public class ChangedFilesTest {
+
+    @Test
+    public void testShardsOfSingleTopLevelDirectoryAreBalanced() {
+        final Set<String> files = IntStream.range(0, 10)
+                .mapToObj(i -> "src/module" + i % 3 + "/File" + i + ".java")
+                .collect(Collectors.toSet());
+
+        final Set<String> all = Sets.newHashSet();
+        for (int shard = 0; shard < 3; shard++) {
+            final Set<String> selected = ChangedFiles.selectShard(files, 3, shard);
+            assertTrue(selected.size() == 3 || selected.size() == 4);
+            assertTrue(Sets.intersection(all, selected).isEmpty());
+            all.addAll(selected);
+        }
+        assertEquals(files, all);
+    }
+
+    @Test
+    public void testFilesOfDirectoryStayTogether() {
+        final Set<String> files = ImmutableSet.of("a/1.c", "a/2.c", "b/1.c", "b/2.c");
+
+        assertEquals(ImmutableSet.of("a/1.c", "a/2.c"), ChangedFiles.selectShard(files, 2, 0));
+        assertEquals(ImmutableSet.of("b/1.c", "b/2.c"), ChangedFiles.selectShard(files, 2, 1));
+    }
+
+    @Test
+    public void testMoreShardsThanFiles() {
+        final Set<String> files = ImmutableSet.of("a.c");
+
+        assertEquals(ImmutableSet.of(), ChangedFiles.selectShard(files, 2, 0));
+        assertEquals(ImmutableSet.of("a.c"), ChangedFiles.selectShard(files, 2, 1));
+    }
+}
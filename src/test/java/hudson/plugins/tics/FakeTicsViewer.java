@@ -0,0 +1,279 @@
+package hudson.plugins.tics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.joda.time.Instant;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded TICS Viewer for tests, that serves the API endpoints used by the plugin with generated data:
+ * <ul>
+ * <li>api/public/v1/Measure, for the metrics runs, baselines, tqiVersion and any numeric metric or Delta expression
+ * <li>api/public/v1/QualityGateStatus
+ * <li>api/v1/version
+ * <li>api/cfg, which refers to an install script that is served as well
+ * </ul>
+ * The latency, the rate of injected errors and the size of the responses can be configured, so that load can be reproduced
+ * without a real viewer.
+ */
+public class FakeTicsViewer implements AutoCloseable {
+    private static final String CONTEXT = "/tiobeweb/TICS";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile long latencyMillis;
+    private volatile long qualityGateLatencyMillis;
+    private volatile double errorRate;
+    private volatile int runs = 10;
+    private final Map<String, Integer> runsPerNode = new ConcurrentHashMap<>();
+    private final Set<String> failingProjects = ConcurrentHashMap.newKeySet();
+    private volatile int gateConditions = 10;
+    private volatile boolean batchRequests = true;
+
+    public FakeTicsViewer() throws IOException {
+        this(16);
+    }
+
+    /** @param threads the number of requests that are handled at the same time */
+    public FakeTicsViewer(final int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext(CONTEXT + "/api/public/v1/Measure", exchange -> handle(exchange, this::measure));
+        server.createContext(CONTEXT + "/api/public/v1/QualityGateStatus", exchange -> handle(exchange, this::qualityGate));
+        server.createContext(CONTEXT + "/api/v1/version", exchange -> handle(exchange, uri -> "{\"version\":\"2024.1.0\",\"fullVersion\":\"2024.1.0.12345\"}"));
+        server.createContext(CONTEXT + "/api/cfg", exchange -> handle(exchange, uri -> "{\"links\":{\"installTics\":\"" + getBaseUrl() + "/api/installtics\"}}"));
+        server.createContext(CONTEXT + "/api/installtics", exchange -> handle(exchange, uri -> "echo TICS installed"));
+        server.start();
+    }
+
+    /** Returns the url to use as TICS Viewer url, e.g. http://127.0.0.1:12345/tiobeweb/TICS. */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + CONTEXT;
+    }
+
+    /** Delays every response by the given time. */
+    public FakeTicsViewer withLatency(final long value, final TimeUnit unit) {
+        this.latencyMillis = unit.toMillis(value);
+        return this;
+    }
+
+    /** Delays the quality gate responses by the given time, in addition to the latency of every response. */
+    public FakeTicsViewer withQualityGateLatency(final long value, final TimeUnit unit) {
+        this.qualityGateLatencyMillis = unit.toMillis(value);
+        return this;
+    }
+
+    /** Fails the given fraction of requests, between 0 and 1, with a 500 response. */
+    public FakeTicsViewer withErrorRate(final double value) {
+        this.errorRate = value;
+        return this;
+    }
+
+    /** Sets the number of runs of every project, which determines the size of the 'runs' response. */
+    public FakeTicsViewer withRuns(final int value) {
+        this.runs = value;
+        return this;
+    }
+
+    /** Sets the number of runs of the given node, e.g. Path(HIE,project,branch), instead of the number of runs of every project. */
+    public FakeTicsViewer withRuns(final String node, final int value) {
+        this.runsPerNode.put(node, value);
+        return this;
+    }
+
+    /** Rejects Measure API requests for more than one node, as older viewers do. */
+    public FakeTicsViewer withoutBatchRequests() {
+        this.batchRequests = false;
+        return this;
+    }
+
+    /** Fails the Measure API and quality gate requests for the given project, e.g. the 'a' of HIE://a/main. */
+    public FakeTicsViewer withFailingProject(final String project) {
+        this.failingProjects.add(project);
+        return this;
+    }
+
+    /** Sets the number of conditions of the quality gate. */
+    public FakeTicsViewer withGateConditions(final int value) {
+        this.gateConditions = value;
+        return this;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private interface Responder {
+        String respond(URI uri);
+    }
+
+    /** Thrown by a {@link Responder} to respond with an error status. */
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        HttpError(final int status, final String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(final HttpExchange exchange, final Responder responder) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            final int status;
+            final String body;
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                status = 500;
+                body = "{\"alertMessages\":[{\"message\":\"Injected error\"}]}";
+            } else {
+                String response;
+                int responseStatus = 200;
+                try {
+                    response = responder.respond(exchange.getRequestURI());
+                } catch (final HttpError e) {
+                    errors.incrementAndGet();
+                    responseStatus = e.status;
+                    response = "{\"alertMessages\":[{\"message\":\"" + e.getMessage() + "\"}]}";
+                }
+                status = responseStatus;
+                body = response;
+            }
+            final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String measure(final URI uri) {
+        final List<String> nodes = splitTopLevel(getParameter(uri, "nodes"));
+        final List<String> metrics = splitTopLevel(getParameter(uri, "metrics"));
+        if (!batchRequests && nodes.size() > 1) {
+            throw new HttpError(400, "Only one node can be requested at a time");
+        }
+        if (nodes.stream().anyMatch(node -> failingProjects.stream().anyMatch(project -> node.contains("," + project + ",")))) {
+            throw new HttpError(500, "Injected error for the project");
+        }
+        final List<String> data = new ArrayList<>();
+        for (final String node : nodes) {
+            for (final String metric : metrics) {
+                data.add(value(node, metric));
+            }
+        }
+        return "{\"data\":[" + String.join(",", data) + "],\"metrics\":["
+                + metrics.stream().map(m -> "{\"expression\":\"" + m + "\",\"fullName\":\"" + m + "\"}").collect(Collectors.joining(","))
+                + "]}";
+    }
+
+    private String value(final String node, final String metric) {
+        switch (metric) {
+        case "runs":
+            final long start = Instant.parse("2020-01-01T00:00:00.000Z").getMillis();
+            return "{\"value\":["
+                    + IntStream.range(0, runsPerNode.getOrDefault(node, runs))
+                        .mapToObj(i -> "{\"started\":\"" + new Instant(start + i * TimeUnit.HOURS.toMillis(6)) + "\"}")
+                        .collect(Collectors.joining(","))
+                    + "],\"status\":\"PRESENT\"}";
+        case "baselines":
+            return "{\"value\":[{\"name\":\"Release 1.0\",\"instant\":\"2020-01-02T00:00:00.000Z\"}],\"status\":\"PRESENT\"}";
+        case TqiPublisherResultBuilder.TQI_VERSION:
+            return "{\"value\":{\"major\":4,\"minor\":0},\"status\":\"PRESENT\"}";
+        default:
+            if (metric.startsWith("Delta(")) {
+                return "{\"value\":1.5,\"status\":\"PRESENT\",\"formattedValue\":\"<span class=\\\"delta\\\">+1.50%</span>\"}";
+            }
+            return "{\"value\":75.25,\"status\":\"PRESENT\",\"letter\":\"B\",\"formattedValue\":\"75.25%\"}";
+        }
+    }
+
+    private String qualityGate(final URI uri) {
+        if (qualityGateLatencyMillis > 0) {
+            try {
+                Thread.sleep(qualityGateLatencyMillis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failingProjects.contains(getParameter(uri, "project"))) {
+            throw new HttpError(500, "Injected error for the project");
+        }
+        return "{\"passed\":true,\"message\":\"Project passed the quality gate\",\"url\":\"QualityGate.html\",\"gates\":[{\"passed\":true,\"name\":\"Default\",\"conditions\":["
+                + IntStream.range(0, gateConditions)
+                    .mapToObj(i -> "{\"passed\":true,\"error\":false,\"message\":\"Condition " + i + " passed\"}")
+                    .collect(Collectors.joining(","))
+                + "]}]}";
+    }
+
+    private static String getParameter(final URI uri, final String name) {
+        return URLEncodedUtils.parse(uri, StandardCharsets.UTF_8.name()).stream()
+                .filter(p -> p.getName().equals(name))
+                .map(NameValuePair::getValue)
+                .findFirst()
+                .orElse("");
+    }
+
+    /** Splits on the commas that are not within parentheses, as in "tqi,Delta(tqi,1577836800)". */
+    private static List<String> splitTopLevel(final String value) {
+        final List<String> out = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                out.add(value.substring(start, i));
+                start = i + 1;
+            }
+        }
+        out.add(value.substring(start));
+        return out;
+    }
+}
@@ -0,0 +1,62 @@
+package hudson.plugins.tics;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+
+/**
+ * Benchmarks of decoding Measure API responses, converting TICS paths, and matching the no-proxy patterns.
+ * The sizes are the number of runs in the response and the number of no-proxy patterns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MeasureApiBenchmark {
+    private static final String MEASURE_URL = "http://192.168.1.204:42506/tiobeweb/TICS/api/public/v1/Measure";
+
+    @Param({"10", "10000"})
+    public int size;
+
+    private String runsJson;
+    private MeasureApiCall apiCall;
+    private ImmutableList<Pattern> noProxyPatterns;
+
+    @Setup
+    public void setup() {
+        runsJson = TqiResultBenchmark.runsJson(size);
+        apiCall = new MeasureApiCall(TqiResultBenchmark.NULL_LOGGER, MEASURE_URL, Optional.empty());
+        // None of the patterns match, so that all of them are tried
+        noProxyPatterns = IntStream.range(0, size)
+                .mapToObj(i -> Pattern.compile("host" + i + "\\.example\\.com"))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    @Benchmark
+    public MeasureApiSuccessResponse<List<MeasureApiSuccessResponse.Run>> decodeRuns() {
+        return new Gson().fromJson(runsJson, MeasureApiCall.RESPONSE_RUNS_TYPETOKEN.getType());
+    }
+
+    @Benchmark
+    public String convertToPathSyntax() {
+        return apiCall.convertToPathSyntax("HIE://my-project/feature/branch(with,parentheses)/src");
+    }
+
+    @Benchmark
+    public boolean isProxyExempted() {
+        return apiCall.isProxyExempted(MEASURE_URL, noProxyPatterns);
+    }
+}
@@ -0,0 +1,57 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.TaskListener;
+import hudson.plugins.tics.MeasureApiSuccessResponse.MetricValue;
+
+public class MeasureApiCallTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private FakeTicsViewer viewer;
+    private MeasureApiCall apiCall;
+
+    @Before
+    public void setUp() throws Exception {
+        viewer = new FakeTicsViewer();
+        apiCall = new MeasureApiCall(TaskListener.NULL.getLogger(), viewer.getBaseUrl() + "/api/public/v1/Measure", Optional.empty());
+    }
+
+    @After
+    public void tearDown() {
+        viewer.close();
+    }
+
+    @Test
+    public void testConvertToPathSyntax() {
+        assertEquals("Path(HIE,project,main)", apiCall.convertToPathSyntax("HIE://project/main"));
+        assertEquals("Path(HIE,project,feature/x)", apiCall.convertToPathSyntax("HIE://project/feature/x"));
+        assertEquals("HIE://project", apiCall.convertToPathSyntax("HIE://project"));
+    }
+
+    @Test
+    public void testExecuteBatchReturnsValuesInOrderOfPaths() throws Exception {
+        viewer.withRuns("Path(HIE,a,main)", 1)
+                .withRuns("Path(HIE,b,main)", 3)
+                .withRuns("Path(HIE,c,main)", 2);
+
+        final List<MetricValue<List<MeasureApiSuccessResponse.Run>>> runs = apiCall.executeBatch(MeasureApiCall.RESPONSE_RUNS_TYPETOKEN,
+                Arrays.asList("HIE://a/main", "HIE://b/main", "HIE://c/main"), "runs");
+
+        assertEquals(Arrays.asList(1, 3, 2), runs.stream().map(r -> r.value.size()).collect(Collectors.toList()));
+        assertEquals(1, viewer.getRequestCount());
+    }
+}
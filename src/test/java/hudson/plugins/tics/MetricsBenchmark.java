@@ -0,0 +1,47 @@
+package hudson.plugins.tics;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Benchmark of {@link Metrics#getEnabledMetrics()}, which is called for every analysis and ledger lookup. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    @Param({"none", "all"})
+    public String enabled;
+
+    private Metrics metrics;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        if ("none".equals(enabled)) {
+            metrics = new Metrics();
+            return;
+        }
+        final Constructor<?> constructor = Arrays.stream(Metrics.class.getConstructors())
+                .filter(c -> c.getParameterCount() > 0)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        final Object[] args = new Object[constructor.getParameterCount()];
+        Arrays.fill(args, Boolean.TRUE);
+        metrics = (Metrics) constructor.newInstance(args);
+    }
+
+    @Benchmark
+    public List<String> getEnabledMetrics() {
+        return metrics.getEnabledMetrics();
+    }
+}
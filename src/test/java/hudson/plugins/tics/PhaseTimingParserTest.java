@@ -0,0 +1,56 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+import hudson.plugins.tics.TicsPhaseTimingAction.PhaseTiming;
+
+public class PhaseTimingParserTest {
+
+    @Test
+    public void testPhasesAreTimedBetweenMarkers() throws IOException {
+        final PhaseTimingParser parser = new PhaseTimingParser(new ByteArrayOutputStream());
+        parser.parseLine("TICSQServer started for project game-gcc", 0);
+        parser.parseLine("[INFO] Phase: PREPARE", 1000);
+        parser.parseLine("Analyzing src/main.cpp", 1500);
+        parser.parseLine("[INFO] Calculating CODINGSTANDARD", 3000);
+        parser.parseLine("[INFO] Calculating CODINGSTANDARD for src/game.cpp", 5000);
+        parser.parseLine("[INFO] Calculating DUPLICATEDCODE", 10000);
+        parser.parseLine("Running FINALIZE", 12000);
+
+        final List<PhaseTiming> phases = parser.finish(13000);
+        assertEquals(4, phases.size());
+        assertPhase("PREPARE", 1000, 3000, phases.get(0));
+        assertPhase("CODINGSTANDARD", 3000, 10000, phases.get(1));
+        assertPhase("DUPLICATEDCODE", 10000, 12000, phases.get(2));
+        assertPhase("FINALIZE", 12000, 13000, phases.get(3));
+    }
+
+    @Test
+    public void testUnknownNamesAreIgnored() throws IOException {
+        final PhaseTimingParser parser = new PhaseTimingParser(new ByteArrayOutputStream());
+        parser.parseLine("Starting TICS", 0);
+        parser.parseLine("Running tests", 100);
+        assertEquals(0, parser.finish(200).size());
+    }
+
+    @Test
+    public void testOutputIsPassedThrough() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final PhaseTimingParser parser = new PhaseTimingParser(out);
+        parser.write("Phase PREPARE\nno newline".getBytes("UTF-8"));
+        assertEquals(1, parser.finish(0).size());
+        assertEquals("Phase PREPARE\nno newline", out.toString("UTF-8"));
+    }
+
+    private static void assertPhase(final String name, final long start, final long end, final PhaseTiming phase) {
+        assertEquals(name, phase.name);
+        assertEquals(start, phase.startMillis);
+        assertEquals(end, phase.endMillis);
+    }
+}
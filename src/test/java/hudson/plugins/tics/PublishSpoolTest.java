@@ -0,0 +1,135 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.TaskListener;
+
+public class PublishSpoolTest {
+    private static final String TICS_PATH = "HIE://project/main";
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private FakeTicsViewer viewer;
+    private FreeStyleBuild build;
+
+    @Before
+    public void setUp() throws Exception {
+        viewer = new FakeTicsViewer().withErrorRate(1);
+        build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+    }
+
+    @After
+    public void tearDown() {
+        viewer.close();
+    }
+
+    @Test
+    public void testSpooledPublicationIsRetriedAndReplayedIntoCompletedBuild() throws Exception {
+        spool();
+
+        // The publication survives a restart
+        final List<PublishSpool.Entry> reloaded = new PublishSpool().getEntries();
+        assertEquals(1, reloaded.size());
+        assertEquals(build.getExternalizableId(), reloaded.get(0).getRunId());
+        assertEquals(TICS_PATH, reloaded.get(0).getTicsPath());
+        assertEquals(0, reloaded.get(0).getAttempts());
+
+        // The viewer is reachable according to the monitor, but its requests still fail
+        final String tiobeWebBaseUrl = reloaded.get(0).getTiobeWebBaseUrl();
+        viewer.withErrorRate(0);
+        ViewerHealthMonitor.get().execute(TaskListener.NULL);
+        assertTrue(ViewerHealthMonitor.get().getFreshHealth(tiobeWebBaseUrl).get().reachable);
+        viewer.withErrorRate(1);
+
+        PublishSpool.get().execute(TaskListener.NULL);
+
+        final PublishSpool.Entry retried = PublishSpool.get().getEntries().get(0);
+        assertEquals(1, retried.getAttempts());
+        assertNotNull(retried.getLastError());
+        assertEquals(1, new PublishSpool().getEntries().get(0).getAttempts());
+        assertNull(build.getAction(TicsPublisherBuildAction.class));
+
+        viewer.withErrorRate(0);
+        PublishSpool.get().execute(TaskListener.NULL);
+
+        assertTrue(PublishSpool.get().getEntries().isEmpty());
+        assertTrue(new PublishSpool().getEntries().isEmpty());
+        final TicsPublisherBuildAction action = build.getAction(TicsPublisherBuildAction.class);
+        assertNotNull(action);
+        assertEquals(TICS_PATH, action.ticsPath);
+        assertNull(action.tqiData.errorMessage);
+        assertNull(action.gateData.errorMessage);
+        assertTrue(action.gateData.passed);
+    }
+
+    @Test
+    public void testViewerThatWasNotCheckedIsSkippedUntilItIsChecked() throws Exception {
+        try (FakeTicsViewer unchecked = new FakeTicsViewer()) {
+            final TicsPublisher publisher = new TicsPublisher(unchecked.getBaseUrl(), TICS_PATH, "", true, false);
+            final String tiobeWebBaseUrl = ValidationHelper.getTiobewebBaseUrlFromGivenUrl(unchecked.getBaseUrl());
+            PublishSpool.get().add(build, publisher, tiobeWebBaseUrl, TICS_PATH);
+
+            // The spool does not wait for a check of the viewer
+            PublishSpool.get().execute(TaskListener.NULL);
+            assertEquals(0, unchecked.getRequestCount());
+            assertEquals(1, PublishSpool.get().getEntries().size());
+
+            // The viewer is checked by the monitor, and published in the next round
+            ViewerHealthMonitor.get().execute(TaskListener.NULL);
+            assertTrue(ViewerHealthMonitor.get().getFreshHealth(tiobeWebBaseUrl).get().reachable);
+            PublishSpool.get().execute(TaskListener.NULL);
+            assertTrue(PublishSpool.get().getEntries().isEmpty());
+            assertNotNull(build.getAction(TicsPublisherBuildAction.class));
+        }
+    }
+
+    @Test
+    public void testPublicationIsDroppedAfterAWeek() throws Exception {
+        spool();
+
+        // Pretend that the publication was spooled a week ago, before a restart
+        final File[] files = new File(j.jenkins.getRootDir(), "tics-publish-spool").listFiles((dir, name) -> name.endsWith(".xml"));
+        assertEquals(1, files.length);
+        final String xml = new String(Files.readAllBytes(files[0].toPath()), StandardCharsets.UTF_8);
+        Files.write(files[0].toPath(), xml.replaceAll("<spooledAtMillis>\\d+</spooledAtMillis>", "<spooledAtMillis>0</spooledAtMillis>").getBytes(StandardCharsets.UTF_8));
+        final PublishSpool spool = new PublishSpool();
+        assertEquals(1, spool.getEntries().size());
+
+        viewer.withErrorRate(0);
+        spool.execute(TaskListener.NULL);
+
+        assertTrue(spool.getEntries().isEmpty());
+        assertFalse(files[0].exists());
+        assertNull(build.getAction(TicsPublisherBuildAction.class));
+    }
+
+    /** Publishes while the viewer is not reachable according to the monitor, so that the publication is spooled. */
+    private void spool() throws Exception {
+        final TicsPublisher publisher = new TicsPublisher(viewer.getBaseUrl(), TICS_PATH, "", true, false);
+        publisher.setSpoolWhenViewerUnavailable(true);
+        final TicsPublisher.Publication publication = publisher.prepare(build, TaskListener.NULL);
+        ViewerHealthMonitor.get().execute(TaskListener.NULL);
+
+        publication.publish(build);
+
+        assertNull(build.getAction(TicsPublisherBuildAction.class));
+        assertEquals(1, PublishSpool.get().getEntries().size());
+    }
+}
@@ -0,0 +1,96 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Test;
+
+import hudson.plugins.tics.QualityGateApiResponse.Condition;
+import hudson.plugins.tics.QualityGateApiResponse.Gate;
+
+public class QualityGateDiffTest {
+
+    @Test
+    public void testConditionsAreMatchedByTheirMessageWithoutNumbers() {
+        final QualityGateApiResponse previous = response(gate("Coverage", condition(true, "Coverage is 81%"), condition(false, "Coding standard is 60%")));
+        // The viewer lists the conditions in another order, and one was added
+        final QualityGateApiResponse current = response(gate("Coverage",
+                condition(true, "Coding standard is 75%"), condition(true, "2 security violations"), condition(false, "Coverage is 79.5%")));
+
+        final QualityGateDiff diff = QualityGateDiff.compute(current, QualityGateDiff.getConditions(previous), 41);
+        assertEquals(41, diff.previousBuildNumber);
+        assertEquals(Arrays.asList("Coverage is 79.5%"), diff.newlyFailing);
+        assertEquals(Arrays.asList("Coding standard is 75%"), diff.newlyPassing);
+        assertEquals(1, diff.unchangedCount);
+    }
+
+    @Test
+    public void testNextBuildIsComparedWithTheStoredOutcomes() {
+        final QualityGateApiResponse first = response(gate("Coverage", condition(true, "Coverage is 81%")));
+        final QualityGateDiff firstDiff = QualityGateDiff.compute(first, null, 0);
+        final QualityGateApiResponse second = response(gate("Coverage", condition(false, "Coverage is 79%")));
+
+        final QualityGateDiff diff = QualityGateDiff.compute(second, firstDiff.conditions, 1);
+        assertEquals(Arrays.asList("Coverage is 79%"), diff.newlyFailing);
+    }
+
+    @Test
+    public void testCountsArePrecomputedPerGate() {
+        final QualityGateApiResponse current = response(
+                gate("Coverage", condition(true, "a"), condition(false, "b"), condition(false, "c")),
+                gate("Security", condition(true, "d")));
+
+        final QualityGateDiff diff = QualityGateDiff.compute(current, QualityGateDiff.getConditions(current), 1);
+        assertEquals(Optional.of(1), diff.getCount("Coverage", true));
+        assertEquals(Optional.of(2), diff.getCount("Coverage", false));
+        assertEquals(Optional.of(0), diff.getCount("Security", false));
+        assertEquals(Optional.empty(), diff.getCount("Unknown", true));
+        assertEquals(4, diff.unchangedCount);
+        assertFalse(diff.hasChanges());
+    }
+
+    @Test
+    public void testWithoutPreviousGateNothingChanged() {
+        final QualityGateApiResponse current = response(gate("Coverage", condition(false, "Coverage is 79%")));
+
+        final QualityGateDiff diff = QualityGateDiff.compute(current, null, 41);
+        assertEquals(0, diff.previousBuildNumber);
+        assertFalse(diff.hasChanges());
+        assertEquals(1, diff.unchangedCount);
+    }
+
+    @Test
+    public void testNewFailingConditionIsNewlyFailing() {
+        final QualityGateApiResponse previous = response(gate("Coverage", condition(true, "Coverage is 81%")));
+        final QualityGateApiResponse current = response(
+                gate("Coverage", condition(true, "Coverage is 82%")),
+                gate("Security", condition(false, "2 security violations")));
+
+        final QualityGateDiff diff = QualityGateDiff.compute(current, QualityGateDiff.getConditions(previous), 7);
+        assertEquals(Arrays.asList("2 security violations"), diff.newlyFailing);
+        assertEquals(1, diff.unchangedCount);
+    }
+
+    private static QualityGateApiResponse response(final Gate... gates) {
+        final QualityGateApiResponse out = new QualityGateApiResponse();
+        out.gates = Arrays.asList(gates);
+        return out;
+    }
+
+    private static Gate gate(final String name, final Condition... conditions) {
+        final Gate out = new Gate();
+        out.name = name;
+        out.conditions = Arrays.asList(conditions);
+        return out;
+    }
+
+    private static Condition condition(final boolean passed, final String message) {
+        final Condition out = new Condition();
+        out.passed = passed;
+        out.message = message;
+        return out;
+    }
+}
@@ -0,0 +1,91 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.Instant;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.AbortException;
+
+public class QualityGateWaiterTest {
+    /** Before the first run that {@link FakeTicsViewer} reports. */
+    private static final long BEFORE_RUNS = Instant.parse("2019-12-31T00:00:00.000Z").getMillis();
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private FakeTicsViewer viewer;
+
+    @Before
+    public void setUp() throws Exception {
+        viewer = new FakeTicsViewer();
+    }
+
+    @After
+    public void tearDown() {
+        viewer.close();
+    }
+
+    @Test
+    public void testGateIsReturnedOnceViewerHasNewRun() throws Exception {
+        final CompletableFuture<QualityGateData> gate = await("HIE://project/main", BEFORE_RUNS, TimeUnit.SECONDS.toMillis(30));
+
+        final QualityGateData data = gate.get(30, TimeUnit.SECONDS);
+        assertTrue(data.passed);
+        assertNotNull(data.apiResponse);
+    }
+
+    @Test
+    public void testTimesOutWithoutNewRun() throws Exception {
+        final CompletableFuture<QualityGateData> gate = await("HIE://project/main", System.currentTimeMillis(), 500);
+
+        final Throwable cause = getFailure(gate);
+        assertTrue(cause instanceof AbortException);
+        assertTrue(cause.getMessage(), cause.getMessage().contains("did not reflect a new run"));
+    }
+
+    @Test
+    public void testTimeoutReportsLastPollError() throws Exception {
+        viewer.withErrorRate(1);
+        final CompletableFuture<QualityGateData> gate = await("HIE://project/main", BEFORE_RUNS, 500);
+
+        final Throwable cause = getFailure(gate);
+        assertTrue(cause instanceof AbortException);
+        assertTrue(cause.getMessage(), cause.getMessage().contains("The last poll failed"));
+    }
+
+    @Test
+    public void testCancelledRequestIsNotCompleted() throws Exception {
+        final CompletableFuture<QualityGateData> gate = await("HIE://project/cancelled", System.currentTimeMillis(), 500);
+        QualityGateWaiter.get().cancel(gate);
+
+        Thread.sleep(1000);
+        assertFalse(gate.isDone());
+    }
+
+    private CompletableFuture<QualityGateData> await(final String ticsPath, final long sinceMillis, final long timeoutMillis) {
+        return QualityGateWaiter.get().await(viewer.getBaseUrl(), ticsPath, "", Optional.empty(), sinceMillis, System.currentTimeMillis() + timeoutMillis);
+    }
+
+    private static Throwable getFailure(final CompletableFuture<QualityGateData> gate) throws Exception {
+        try {
+            gate.get(30, TimeUnit.SECONDS);
+        } catch (final ExecutionException e) {
+            return e.getCause();
+        }
+        fail("Expected the wait to fail");
+        return null;
+    }
+}
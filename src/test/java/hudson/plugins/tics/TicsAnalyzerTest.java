@@ -1,10 +1,16 @@
 package hudson.plugins.tics;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
+import org.joda.time.Instant;
 import org.junit.Test;
 
 import hudson.EnvVars;
@@ -176,6 +182,17 @@ public class TicsAnalyzerTest {
         }
     }
 
+    @Test
+    public void testGetTicsAnalysisCmdEscapedWithFileList() {
+        final EnvVars buildEnv = new EnvVars();
+        final TicsArguments linuxArgs = new TicsArguments("game-gcc", "master", "/home/leila/development/dev-test/projects/game-gcc", "");
+        final TicsAnalyzer ta = getTicsAnalyzer(getMetrics(true, false, false, false), getMetrics(false, false, false, false), linuxArgs);
+
+        final ArgumentListBuilder ticsAnalysisCmd = ta.getTicsQServerArgs(buildEnv, true, Optional.of("/home/leila/development/dev-test/projects/game-gcc/tics-filelist123.txt"), Optional.empty());
+        assertEquals("TICSQServer -project game-gcc -branchname master -branchdir /home/leila/development/dev-test/projects/game-gcc -filelist /home/leila/development/dev-test/projects/game-gcc/tics-filelist123.txt -calc CODINGSTANDARD",
+                ta.getTicsAnalysisCmdEscaped(ticsAnalysisCmd, true));
+    }
+
     @Test
     public void testRemoveDoubleQuoteFromCommand() {
         String ticsAnalysisCmd;
@@ -193,4 +210,21 @@ public class TicsAnalyzerTest {
         ticsAnalysisCmdExpected = "cmd.exe /C \"TICSQServer.exe -project cpp-game-vs -calc BEGIN,CODINGSTANDARD,LOC,ABSTRACTINTERPRETATION,SECURITY -recalc FINALIZE && exit %%ERRORLEVEL%%\"";
         assertEquals(ticsAnalysisCmdExpected, ta.removeDoubleQuoteFromCommand("calc", ticsAnalysisCmd));
     }
+
+    @Test
+    public void testRunOfAnalysisIsMatchedDespiteClockSkew() {
+        final AnalysisLedger.Entry entry = new AnalysisLedger.Entry("job #1", 1_000_000, 2_000_000);
+        final Instant before = new Instant(1_000_000 - TicsAnalyzer.CLOCK_SKEW_MILLIS - 1);
+        final Instant ownRunOnAClockThatIsBehind = new Instant(1_000_000 - 1000);
+        final Instant later = new Instant(2_000_000 + TicsAnalyzer.CLOCK_SKEW_MILLIS + 1);
+
+        assertEquals(Collections.singletonList(ownRunOnAClockThatIsBehind), TicsAnalyzer.getRunsSince(Arrays.asList(before, ownRunOnAClockThatIsBehind), entry));
+        assertTrue(TicsAnalyzer.isRunOf(ownRunOnAClockThatIsBehind, entry));
+
+        // A run that started after the analysis finished is not the run of the analysis
+        assertEquals(Collections.singletonList(later), TicsAnalyzer.getRunsSince(Arrays.asList(before, later), entry));
+        assertFalse(TicsAnalyzer.isRunOf(later, entry));
+
+        assertTrue(TicsAnalyzer.getRunsSince(Collections.singletonList(before), entry).isEmpty());
+    }
 }
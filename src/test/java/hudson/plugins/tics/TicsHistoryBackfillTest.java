@@ -0,0 +1,90 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.joda.time.Instant;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.TaskListener;
+
+public class TicsHistoryBackfillTest {
+    private static final String TICS_PATH = "HIE://project/main";
+    /** The start of the first run that {@link FakeTicsViewer} reports; the next runs start every 6 hours. */
+    private static final long FIRST_RUN = Instant.parse("2020-01-01T00:00:00.000Z").getMillis();
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private FakeTicsViewer viewer;
+
+    @Before
+    public void setUp() throws Exception {
+        viewer = new FakeTicsViewer().withRuns(10);
+    }
+
+    @After
+    public void tearDown() {
+        viewer.close();
+    }
+
+    @Test
+    public void testTqiAtDateIsCurrentTqiMinusDelta() throws Exception {
+        final MeasureApiCall apiCall = new MeasureApiCall(TaskListener.NULL.getLogger(), viewer.getBaseUrl() + "/api/public/v1/Measure", Optional.empty());
+        final List<Long> dates = Arrays.asList(runStart(0), runStart(1));
+
+        final List<TicsHistory.Point> points = TicsHistoryBackfill.retrieveTqi(apiCall, TICS_PATH, dates);
+
+        // The fake viewer has a TQI of 75.25 and a delta of 1.5 with every date
+        assertEquals(dates, points.stream().map(p -> p.dateMillis).collect(Collectors.toList()));
+        assertEquals(73.75, points.get(0).tqi, 0.001);
+        assertEquals(73.75, points.get(1).tqi, 0.001);
+    }
+
+    @Test
+    public void testBackfillContinuesWhereItStopped() throws Exception {
+        final FreeStyleProject project = j.createFreeStyleProject();
+        final FreeStyleBuild build = j.buildAndAssertSuccess(project);
+        build.addAction(new TicsPublisherBuildAction(build, TICS_PATH, null, null, viewer.getBaseUrl()));
+        build.save();
+
+        // A previous backfill stopped after the first 4 runs
+        final TicsHistory history = TicsHistory.load(project);
+        final List<TicsHistory.Point> previous = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            previous.add(new TicsHistory.Point(runStart(i), 50.0));
+        }
+        history.add(TICS_PATH, previous);
+        history.save(project);
+
+        final TicsHistoryBackfill.Task task = new TicsHistoryBackfill.Task(project.getFullName());
+        assertEquals("Done", TicsHistoryBackfill.run(project, task));
+
+        assertEquals(6, task.getTotal());
+        assertEquals(6, task.getDone());
+        // One request for the runs, and one for the TQI of the 6 remaining runs
+        assertEquals(2, viewer.getRequestCount());
+        final List<TicsHistory.Point> points = TicsHistory.load(project).getPoints(TICS_PATH);
+        assertEquals(10, points.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(runStart(i), points.get(i).dateMillis);
+            assertEquals(i < 4 ? 50.0 : 73.75, points.get(i).tqi, 0.001);
+        }
+    }
+
+    private static long runStart(final int index) {
+        return FIRST_RUN + index * TimeUnit.HOURS.toMillis(6);
+    }
+}
@@ -0,0 +1,90 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.google.common.hash.Hashing;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+
+public class TicsInstallerCacheTest {
+    /** The install script that {@link FakeTicsViewer} serves. */
+    private static final String SCRIPT = "echo TICS installed";
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private FakeTicsViewer viewer;
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        viewer = new FakeTicsViewer();
+        dir = tmp.newFolder("installers");
+    }
+
+    @After
+    public void tearDown() {
+        viewer.close();
+    }
+
+    @Test
+    public void testScriptIsDownloadedOncePerKey() throws Exception {
+        final TicsInstallerCache cache = new TicsInstallerCache(dir);
+
+        final FilePath first = getInstaller(cache, "viewer|2024.1|linux");
+        final FilePath second = getInstaller(cache, "viewer|2024.1|linux");
+
+        assertEquals(first.getRemote(), second.getRemote());
+        assertEquals(SCRIPT, first.readToString());
+        assertEquals(1, viewer.getRequestCount());
+    }
+
+    @Test
+    public void testUnchangedScriptThatIsDownloadedAgainIsNotPruned() throws Exception {
+        // A script of a previous session that has not been fetched for a long time, as after a restart of the controller
+        final File existing = new File(dir, Hashing.sha256().hashString(SCRIPT, StandardCharsets.UTF_8) + ".sh");
+        Files.write(existing.toPath(), SCRIPT.getBytes(StandardCharsets.UTF_8));
+        assertTrue(existing.setLastModified(0));
+
+        final FilePath installer = getInstaller(new TicsInstallerCache(dir), "viewer|2024.1|linux");
+
+        assertEquals(existing.getAbsolutePath(), installer.getRemote());
+        assertTrue(existing.isFile());
+        assertTrue(existing.lastModified() > 0);
+    }
+
+    @Test
+    public void testStaleUnreferencedScriptsArePruned() throws Exception {
+        final File stale = new File(dir, "stale.sh");
+        Files.write(stale.toPath(), "echo old".getBytes(StandardCharsets.UTF_8));
+        assertTrue(stale.setLastModified(0));
+
+        getInstaller(new TicsInstallerCache(dir), "viewer|2024.1|linux");
+
+        assertFalse(stale.exists());
+    }
+
+    private FilePath getInstaller(final TicsInstallerCache cache, final String key) throws Exception {
+        final Supplier<String> url = () -> viewer.getBaseUrl() + "/api/installtics";
+        return cache.getInstaller(key, url, Optional.empty(), true, TaskListener.NULL);
+    }
+}
@@ -0,0 +1,163 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.EnvVars;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.TaskListener;
+
+/**
+ * Publishes the results of concurrent builds against a {@link FakeTicsViewer}, and reports the throughput, the latency percentiles
+ * of {@link TicsPublisher#perform}, the number of threads used, and the allocation rate. The report is printed and written
+ * to target/load-test-report.json.
+ * <p>
+ * The load test only runs when enabled: mvn test -Dtest=TicsPublisherLoadTest -Dhudson.plugins.tics.loadTest=true
+ * The load can be set with the system properties below, prefixed with hudson.plugins.tics.loadTest.
+ * A single publication is always checked, so that the load test does not silently measure a publisher that fails.
+ */
+public class TicsPublisherLoadTest {
+    private static final String PREFIX = "hudson.plugins.tics.loadTest";
+    private static final int CONCURRENCY = Integer.getInteger(PREFIX + ".concurrency", 8);
+    private static final int ITERATIONS = Integer.getInteger(PREFIX + ".iterations", 20);
+    private static final long LATENCY_MS = Long.getLong(PREFIX + ".latency", 50);
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty(PREFIX + ".errorRate", "0"));
+    private static final int RUNS = Integer.getInteger(PREFIX + ".runs", 100);
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void publishOnce() throws Exception {
+        try (FakeTicsViewer viewer = new FakeTicsViewer().withRuns(RUNS)) {
+            final TicsPublisher publisher = new TicsPublisher(viewer.getBaseUrl(), "HIE://project/main", "", true, false);
+            final FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+
+            publisher.perform(build, j.jenkins.getRootPath(), new EnvVars(), j.createLocalLauncher(), TaskListener.NULL);
+
+            final List<TicsPublisherBuildAction> actions = build.getActions(TicsPublisherBuildAction.class);
+            assertEquals(1, actions.size());
+            final TicsPublisherBuildAction action = actions.get(0);
+            assertEquals("HIE://project/main", action.ticsPath);
+            assertNull(action.tqiData.errorMessage);
+            assertFalse(action.tqiData.runs.isEmpty());
+            assertNull(action.gateData.errorMessage);
+            assertTrue(action.gateData.passed);
+        }
+    }
+
+    @Test
+    public void concurrentPublish() throws Exception {
+        Assume.assumeTrue("Load test is not enabled", Boolean.getBoolean(PREFIX));
+        try (FakeTicsViewer viewer = new FakeTicsViewer(CONCURRENCY * 2)
+                .withLatency(LATENCY_MS, TimeUnit.MILLISECONDS)
+                .withErrorRate(ERROR_RATE)
+                .withRuns(RUNS)) {
+            final TicsPublisher publisher = new TicsPublisher(viewer.getBaseUrl(), "HIE://project/main", "", true, false);
+            // Each iteration publishes into a build of its own, as builds do, so that the actions do not pile up on one build
+            final List<List<FreeStyleBuild>> buildsPerWorker = new ArrayList<>();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                final FreeStyleProject project = j.createFreeStyleProject();
+                final List<FreeStyleBuild> builds = new ArrayList<>();
+                for (int k = 0; k < ITERATIONS; k++) {
+                    builds.add(j.buildAndAssertSuccess(project));
+                }
+                buildsPerWorker.add(builds);
+            }
+
+            final List<Long> latenciesNanos = Collections.synchronizedList(new ArrayList<>());
+            final List<Callable<Void>> workers = new ArrayList<>();
+            for (final List<FreeStyleBuild> builds : buildsPerWorker) {
+                workers.add(() -> {
+                    for (final FreeStyleBuild build : builds) {
+                        final long start = System.nanoTime();
+                        publisher.perform(build, j.jenkins.getRootPath(), new EnvVars(), j.createLocalLauncher(), TaskListener.NULL);
+                        latenciesNanos.add(System.nanoTime() - start);
+                    }
+                    return null;
+                });
+            }
+
+            final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            final int threadsBefore = threads.getThreadCount();
+            final long allocatedBefore = getAllocatedBytes(threads);
+            final long start = System.nanoTime();
+            final ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+            try {
+                for (final Future<Void> future : executor.invokeAll(workers)) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            final long elapsedNanos = System.nanoTime() - start;
+            final long allocated = getAllocatedBytes(threads) - allocatedBefore;
+
+            assertEquals(CONCURRENCY * ITERATIONS, latenciesNanos.size());
+            final List<Long> sorted = new ArrayList<>(latenciesNanos);
+            Collections.sort(sorted);
+            final double seconds = elapsedNanos / 1e9;
+            final String report = "{"
+                    + "\"concurrency\":" + CONCURRENCY
+                    + ",\"iterations\":" + ITERATIONS
+                    + ",\"viewerLatencyMs\":" + LATENCY_MS
+                    + ",\"viewerErrorRate\":" + ERROR_RATE
+                    + ",\"runs\":" + RUNS
+                    + ",\"publishesPerSecond\":" + String.format("%.2f", sorted.size() / seconds)
+                    + ",\"viewerRequestsPerSecond\":" + String.format("%.2f", viewer.getRequestCount() / seconds)
+                    + ",\"viewerErrors\":" + viewer.getErrorCount()
+                    + ",\"latencyMs\":{\"p50\":" + percentileMillis(sorted, 50)
+                    + ",\"p90\":" + percentileMillis(sorted, 90)
+                    + ",\"p99\":" + percentileMillis(sorted, 99)
+                    + ",\"max\":" + percentileMillis(sorted, 100) + "}"
+                    + ",\"threads\":{\"before\":" + threadsBefore + ",\"peak\":" + threads.getPeakThreadCount() + "}"
+                    + ",\"allocatedMbPerSecond\":" + String.format("%.1f", allocated / 1e6 / seconds)
+                    + "}";
+            System.out.println("TICS publisher load test: " + report);
+            final File out = new File("target", "load-test-report.json");
+            Files.createDirectories(out.getParentFile().toPath());
+            Files.write(out.toPath(), report.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static long percentileMillis(final List<Long> sortedNanos, final int percentile) {
+        final int index = Math.min(sortedNanos.size() - 1, (int) Math.ceil(percentile / 100.0 * sortedNanos.size()) - 1);
+        return TimeUnit.NANOSECONDS.toMillis(sortedNanos.get(Math.max(0, index)));
+    }
+
+    /** Sums the allocations of the live threads. Threads that ended in between are not counted, so this is a lower bound. */
+    private static long getAllocatedBytes(final ThreadMXBean threads) {
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+        long total = 0;
+        for (final long allocated : sunThreads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(0, allocated);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,117 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.TaskListener;
+import hudson.plugins.tics.TicsPublishSummaryAction.GateStatus;
+
+public class TicsPublisherTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private FakeTicsViewer viewer;
+
+    @Before
+    public void setUp() throws Exception {
+        viewer = new FakeTicsViewer();
+    }
+
+    @After
+    public void tearDown() {
+        viewer.close();
+    }
+
+    @Test
+    public void testPublishAllFallsBackToRequestsPerPath() throws Exception {
+        viewer.withoutBatchRequests();
+        final FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        final TicsPublisher publisher = new TicsPublisher(viewer.getBaseUrl(), "", "", true, false);
+
+        publisher.publishAll(build, TaskListener.NULL, Arrays.asList("HIE://a/main", "HIE://b/main"));
+
+        final List<TicsPublisherBuildAction> actions = build.getActions(TicsPublisherBuildAction.class);
+        assertEquals(Arrays.asList("HIE://a/main", "HIE://b/main"), actions.stream().map(a -> a.ticsPath).collect(Collectors.toList()));
+        for (final TicsPublisherBuildAction action : actions) {
+            assertNull(action.tqiData.errorMessage);
+            assertNull(action.gateData.errorMessage);
+        }
+        final TicsPublishSummaryAction summary = build.getAction(TicsPublishSummaryAction.class);
+        assertNotNull(summary);
+        assertEquals(Arrays.asList(GateStatus.PASSED, GateStatus.PASSED), summary.getPaths().stream().map(p -> p.qualityGate).collect(Collectors.toList()));
+        assertEquals(0, summary.getFailedCount());
+    }
+
+    @Test
+    public void testFailingPathDoesNotPreventTheOtherPaths() throws Exception {
+        viewer.withFailingProject("b");
+        final FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        final TicsPublisher publisher = new TicsPublisher(viewer.getBaseUrl(), "", "", true, false);
+
+        publisher.publishAll(build, TaskListener.NULL, Arrays.asList("HIE://a/main", "HIE://b/main", "HIE://c/main"));
+
+        final List<TicsPublisherBuildAction> actions = build.getActions(TicsPublisherBuildAction.class);
+        assertEquals(Arrays.asList("HIE://a/main", "HIE://b/main", "HIE://c/main"), actions.stream().map(a -> a.ticsPath).collect(Collectors.toList()));
+        assertNull(actions.get(0).tqiData.errorMessage);
+        assertNotNull(actions.get(1).tqiData.errorMessage);
+        assertNotNull(actions.get(1).gateData.errorMessage);
+        assertNull(actions.get(2).tqiData.errorMessage);
+        final TicsPublishSummaryAction summary = build.getAction(TicsPublishSummaryAction.class);
+        assertEquals(Arrays.asList(GateStatus.PASSED, GateStatus.ERROR, GateStatus.PASSED), summary.getPaths().stream().map(p -> p.qualityGate).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testAbortedPublicationAbortsTheQualityGateRequest() throws Exception {
+        viewer.withQualityGateLatency(60, TimeUnit.SECONDS);
+        final FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        final TicsPublisher publisher = new TicsPublisher(viewer.getBaseUrl(), "HIE://project/main", "", true, false);
+        final TicsPublisher.Publication publication = publisher.prepare(build, TaskListener.NULL);
+
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final Thread publishing = new Thread(() -> {
+            try {
+                publication.retrieve(build);
+            } catch (final Throwable e) {
+                failure.set(e);
+            }
+        });
+        publishing.start();
+        // The TQI is retrieved by then, so that only the quality gate is pending
+        Thread.sleep(2000);
+        publishing.interrupt();
+        publishing.join(5000);
+
+        assertFalse(publishing.isAlive());
+        assertTrue(failure.get() instanceof InterruptedException);
+        // Closing the shared client aborts the request, which is otherwise not interrupted while it waits for the viewer
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (isReadingQualityGate() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertFalse(isReadingQualityGate());
+    }
+
+    private static boolean isReadingQualityGate() {
+        return Thread.getAllStackTraces().entrySet().stream()
+                .filter(e -> e.getKey().getName().startsWith("TICS quality gate"))
+                .flatMap(e -> Arrays.stream(e.getValue()))
+                .anyMatch(frame -> frame.getClassName().contains("Socket") && frame.getMethodName().toLowerCase().contains("read"));
+    }
+}
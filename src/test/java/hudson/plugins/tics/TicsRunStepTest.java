@@ -0,0 +1,248 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.workflow.steps.BodyInvoker;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.TestName;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.Functions;
+import hudson.Launcher;
+import hudson.model.FreeStyleBuild;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+public class TicsRunStepTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Rule
+    public TestName name = new TestName();
+
+    private File ticsBin;
+    private FakeStepContext context;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeFalse("The fake TICSQServer is a shell script", Functions.isWindows());
+        ticsBin = tmp.newFolder("bin");
+        // A TICSQServer that records its process id and then runs until it is killed
+        writeTicsQServer("sleep 60");
+
+        final FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        context = new FakeStepContext(ImmutableMap.of(
+                Run.class, build,
+                FilePath.class, new FilePath(tmp.newFolder("workspace")),
+                EnvVars.class, new EnvVars(),
+                Launcher.class, j.createLocalLauncher(),
+                TaskListener.class, TaskListener.NULL));
+    }
+
+    @Test
+    public void testStopKillsTheAnalysis() throws Exception {
+        final StepExecution execution = createStep().start(context);
+        assertFalse(execution.start());
+        final File pidFile = new File(ticsBin, "pid");
+        waitUntil(() -> pidFile.length() > 0);
+        final String pid = new String(Files.readAllBytes(pidFile.toPath()), StandardCharsets.UTF_8).trim();
+
+        final AbortException cause = new AbortException("Aborted");
+        execution.stop(cause);
+
+        assertSame(cause, getFailure());
+        waitUntil(() -> !new File("/proc/" + pid).exists());
+    }
+
+    @Test
+    public void testResumeFailsInsteadOfAnalyzingAgain() throws Exception {
+        final StepExecution execution = createStep().start(context);
+
+        execution.onResume();
+
+        final Throwable failure = getFailure();
+        assertTrue(failure instanceof AbortException);
+        assertTrue(failure.getMessage(), failure.getMessage().contains("restarted"));
+        Thread.sleep(1000);
+        assertFalse(new File(ticsBin, "pid").exists());
+    }
+
+    @Test
+    public void testWaitsForItsTurnWithoutAnalyzing() throws Exception {
+        TicsAnalyzer.DescriptorImpl.get().setMaxConcurrentAnalyses(1);
+        final TicsRunStep step = createStep();
+        final String key = step.toPipelineRun().createAnalyzer().getThrottleKey(context.get(Run.class).getEnvironment(TaskListener.NULL));
+        final AnalysisThrottle.Permit running = AnalysisThrottle.get().acquire(key, TaskListener.NULL);
+        try {
+            final StepExecution execution = step.start(context);
+            execution.start();
+            assertEquals("waiting for other analyses of the same project", execution.getStatus());
+
+            execution.stop(new AbortException("Aborted"));
+            assertEquals(0, getQueue(key).getWaiting());
+        } finally {
+            running.close();
+        }
+        Thread.sleep(1000);
+        assertFalse(new File(ticsBin, "pid").exists());
+        assertEquals(0, getQueue(key).getRunning());
+    }
+
+    @Test
+    public void testResultsArePublishedAfterTheAnalysis() throws Exception {
+        writeTicsQServer("exit 0");
+        try (FakeTicsViewer viewer = new FakeTicsViewer()) {
+            final TicsRunStep step = createStep();
+            final TicsPipelinePublish publish = new TicsPipelinePublish(viewer.getBaseUrl());
+            publish.setTicsProjectPath("HIE://project/main");
+            publish.setCheckQualityGate(true);
+            step.setPublish(publish);
+
+            step.start(context).start();
+            context.outcome.get(30, TimeUnit.SECONDS);
+
+            assertTrue(new File(ticsBin, "pid").exists());
+            final TicsPublisherBuildAction action = context.get(Run.class).getAction(TicsPublisherBuildAction.class);
+            assertEquals("HIE://project/main", action.ticsPath);
+            assertNull(action.tqiData.errorMessage);
+            assertNull(action.gateData.errorMessage);
+        }
+    }
+
+    private void writeTicsQServer(final String command) throws IOException {
+        final File ticsQServer = new File(ticsBin, "TICSQServer");
+        Files.write(ticsQServer.toPath(), ("#!/bin/sh\necho $$ > '" + new File(ticsBin, "pid") + "'\n" + command + "\n").getBytes(StandardCharsets.UTF_8));
+        assertTrue(ticsQServer.setExecutable(true));
+    }
+
+    private TicsRunStep createStep() {
+        final TicsRunStep step = new TicsRunStep(name.getMethodName(), "main");
+        step.setTicsBin(ticsBin.getAbsolutePath());
+        return step;
+    }
+
+    private Throwable getFailure() throws Exception {
+        try {
+            context.outcome.get(30, TimeUnit.SECONDS);
+        } catch (final ExecutionException e) {
+            return e.getCause();
+        }
+        fail("Expected the step to fail");
+        return null;
+    }
+
+    private static AnalysisThrottle.ThrottleQueue getQueue(final String key) {
+        return AnalysisThrottle.get().getQueues().stream().filter(q -> q.getKey().equals(key)).findFirst().get();
+    }
+
+    private interface Condition {
+        boolean holds() throws Exception;
+    }
+
+    private static void waitUntil(final Condition condition) throws Exception {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (!condition.holds()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out");
+            }
+            Thread.sleep(100);
+        }
+    }
+
+    /** A context that provides the given objects and records the outcome of the step. */
+    private static final class FakeStepContext extends StepContext {
+        private static final long serialVersionUID = 1L;
+        private final transient Map<Class<?>, Object> values;
+        final transient CompletableFuture<Object> outcome = new CompletableFuture<>();
+
+        FakeStepContext(final Map<Class<?>, Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        public <T> T get(final Class<T> key) throws IOException, InterruptedException {
+            return key.cast(values.get(key));
+        }
+
+        @Override
+        public void onSuccess(final Object result) {
+            if (!outcome.complete(result)) {
+                throw new IllegalStateException("Completed twice");
+            }
+        }
+
+        @Override
+        public void onFailure(final Throwable t) {
+            if (!outcome.completeExceptionally(t)) {
+                throw new IllegalStateException("Completed twice", t);
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return outcome.isDone();
+        }
+
+        @Override
+        public ListenableFuture<Void> saveState() {
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public void setResult(final Result r) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public BodyInvoker newBodyInvoker() {
+            throw new IllegalStateException("The step has no body");
+        }
+
+        @Override
+        public boolean hasBody() {
+            return false;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.model.FreeStyleBuild;
+import hudson.plugins.tics.TicsShardTimingAction.ShardTiming;
+
+public class TicsShardTimingActionTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testSpeedupIsShownOnceAllShardsFinished() throws Exception {
+        final FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        TicsShardTimingAction.start(build, 0, 2);
+        TicsShardTimingAction.start(build, 1, 2);
+        TicsShardTimingAction.record(build, new ShardTiming(0, 2, "agent-1", 10, 0, 1000, true));
+        final TicsShardTimingAction action = build.getAction(TicsShardTimingAction.class);
+
+        assertFalse(action.isComplete());
+        assertEquals("-", action.getSpeedup());
+
+        TicsShardTimingAction.record(build, new ShardTiming(1, 2, "agent-2", 10, 0, 1000, true));
+        assertTrue(action.isComplete());
+        assertEquals(String.format("%.1fx", 2.0), action.getSpeedup());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShardsOfOneBuildShouldAgreeOnTheShardCount() throws Exception {
+        final FreeStyleBuild build = j.buildAndAssertSuccess(j.createFreeStyleProject());
+        TicsShardTimingAction.start(build, 0, 2);
+        TicsShardTimingAction.start(build, 1, 3);
+    }
+}
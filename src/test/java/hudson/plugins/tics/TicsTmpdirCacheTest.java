@@ -0,0 +1,49 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.util.StreamTaskListener;
+
+public class TicsTmpdirCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testNextAnalysisReusesTheTmpdir() throws Exception {
+        final TicsTmpdirCache cache = new TicsTmpdirCache(new FilePath(tmp.getRoot()), "project", "main");
+        final TicsTmpdirCache.Slot first = cache.acquire(TaskListener.NULL);
+        first.getDir().child("data").write("previous analysis", "UTF-8");
+        first.release(TaskListener.NULL);
+
+        final ByteArrayOutputStream log = new ByteArrayOutputStream();
+        final TicsTmpdirCache.Slot second = cache.acquire(new StreamTaskListener(log, StandardCharsets.UTF_8));
+
+        assertEquals(first.getDir(), second.getDir());
+        assertTrue(second.getDir().child("data").exists());
+        assertTrue(log.toString("UTF-8"), log.toString("UTF-8").contains("Tmpdir cache hit"));
+        second.release(TaskListener.NULL);
+    }
+
+    @Test
+    public void testConcurrentAnalysesOfOneBranchUseTheirOwnTmpdir() throws Exception {
+        final TicsTmpdirCache cache = new TicsTmpdirCache(new FilePath(tmp.getRoot()), "project", "main");
+        final TicsTmpdirCache.Slot first = cache.acquire(TaskListener.NULL);
+        final TicsTmpdirCache.Slot second = cache.acquire(TaskListener.NULL);
+
+        assertNotEquals(first.getDir(), second.getDir());
+        first.release(TaskListener.NULL);
+        second.release(TaskListener.NULL);
+    }
+}
@@ -0,0 +1,141 @@
+package hudson.plugins.tics;
+
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.joda.time.Instant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Benchmarks of turning Measure API responses into the results of a build: {@link TqiPublisherResultBuilder#run()},
+ * which strips the HTML of the formatted values with Jsoup, and building what <code>TicsPublisher/table.jelly</code> renders.
+ * The viewer is replaced by responses that are decoded once, so that only the processing is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TqiResultBenchmark {
+    static final PrintStream NULL_LOGGER = new PrintStream(ByteStreams.nullOutputStream());
+
+    /** Number of runs of the project, and number of conditions of the quality gate. */
+    @Param({"10", "1000"})
+    public int size;
+
+    private MeasureApiCall apiCall;
+    private MetricData tqiData;
+    private QualityGateData gateData;
+    private List<QualityGateDiff.ConditionState> previousGate;
+
+    /** Returns the canned response for the metrics that {@link TqiPublisherResultBuilder} asks for. */
+    private static final class CannedMeasureApiCall extends MeasureApiCall {
+        private final Map<String, Object> responses;
+
+        CannedMeasureApiCall(final Map<String, Object> responses) {
+            super(NULL_LOGGER, "http://localhost:42506/tiobeweb/TICS/api/public/v1/Measure", Optional.empty());
+            this.responses = responses;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(final TypeToken<T> typeToken, final String paths, final String metrics) {
+            return (T) responses.get(metrics.contains(",") ? "values" : metrics);
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        final Gson gson = new Gson();
+        apiCall = new CannedMeasureApiCall(ImmutableMap.of(
+                "runs", gson.fromJson(runsJson(size), MeasureApiCall.RESPONSE_RUNS_TYPETOKEN.getType()),
+                TqiPublisherResultBuilder.TQI_VERSION, gson.fromJson("{\"data\":[{\"value\":{\"major\":4,\"minor\":0}}]}", MeasureApiCall.RESPONSE_TQIVERSION_TYPETOKEN.getType()),
+                "baselines", gson.fromJson("{\"data\":[{\"value\":[{\"name\":\"Release 1.0\",\"instant\":\"2023-06-01T00:00:00.000Z\"}]}]}", MeasureApiCall.RESPONSE_BASELINES_TYPETOKEN.getType()),
+                "values", gson.fromJson(valuesJson(TqiPublisherResultBuilder.METRICS_4_0.size()), MeasureApiCall.RESPONSE_NUMBER_TYPETOKEN.getType())));
+        tqiData = new TqiPublisherResultBuilder(NULL_LOGGER, apiCall, "HIE://project/main").run();
+        previousGate = QualityGateDiff.getConditions(gate(size, 0));
+        gateData = QualityGateData.success("project", "main", gate(size, 1));
+    }
+
+    @Benchmark
+    public MetricData runResultBuilder() throws Exception {
+        return new TqiPublisherResultBuilder(NULL_LOGGER, apiCall, "HIE://project/main").run();
+    }
+
+    /** Builds the action and computes everything that table.jelly asks it for. */
+    @Benchmark
+    public void buildViewModel(final Blackhole bh) {
+        final QualityGateDiff diff = QualityGateDiff.compute(gateData.apiResponse, previousGate, 1);
+        final TicsPublisherBuildAction action = new TicsPublisherBuildAction(null, "HIE://project/main", tqiData, gateData, diff, "http://localhost:42506/tiobeweb/TICS");
+        bh.consume(action.getOpenInViewerUrl());
+        bh.consume(action.formatDate(tqiData.measurementDate));
+        for (final MetricData.MetricValue mv : tqiData.runs.get(0).metricValues) {
+            if (mv.letter != null) {
+                bh.consume(action.getLetterForegroundColor(mv.letter));
+                bh.consume(action.getLetterBackgroundColor(mv.letter));
+            }
+        }
+        for (final QualityGateApiResponse.Gate gate : gateData.apiResponse.gates) {
+            bh.consume(action.countConditions(gate, true));
+            bh.consume(action.countConditions(gate, false));
+        }
+        bh.consume(action.formatDate(gateData.measurementDate));
+    }
+
+    static String runsJson(final int runs) {
+        final long start = Instant.parse("2020-01-01T00:00:00.000Z").getMillis();
+        return "{\"data\":[{\"value\":["
+                + IntStream.range(0, runs)
+                    .mapToObj(i -> "{\"started\":\"" + new Instant(start + i * TimeUnit.HOURS.toMillis(6)) + "\"}")
+                    .collect(Collectors.joining(","))
+                + "],\"status\":\"PRESENT\"}],\"metrics\":[{\"expression\":\"runs\",\"fullName\":\"Runs\"}]}";
+    }
+
+    /** Values with HTML in the formatted value, as the viewer returns for deltas. */
+    private static String valuesJson(final int metrics) {
+        return "{\"data\":["
+                + IntStream.range(0, metrics)
+                    .mapToObj(i -> "{\"value\":" + (70 + i) + ".25,\"status\":\"PRESENT\",\"letter\":\"B\","
+                            + "\"formattedValue\":\"<span class=\\\"delta positive\\\">+" + (70 + i) + ".25%</span>\"}")
+                    .collect(Collectors.joining(","))
+                + "],\"metrics\":["
+                + IntStream.range(0, metrics)
+                    .mapToObj(i -> "{\"expression\":\"m" + i + "\",\"fullName\":\"Metric " + i + "\"}")
+                    .collect(Collectors.joining(","))
+                + "]}";
+    }
+
+    /** A gate of the given number of conditions, of which every third fails, shifted by the given offset. */
+    private static QualityGateApiResponse gate(final int conditions, final int offset) {
+        final QualityGateApiResponse.Gate gate = new QualityGateApiResponse.Gate();
+        gate.name = "Default";
+        for (int i = 0; i < conditions; i++) {
+            final QualityGateApiResponse.Condition condition = new QualityGateApiResponse.Condition();
+            condition.passed = (i + offset) % 3 != 0;
+            condition.message = "Condition " + i + " measured " + (i * 1.5) + "%";
+            gate.conditions.add(condition);
+        }
+        final QualityGateApiResponse out = new QualityGateApiResponse();
+        out.passed = false;
+        out.url = "QualityGate.html#axes=Project(project),Branch(main)";
+        out.gates = Collections.singletonList(gate);
+        return out;
+    }
+}
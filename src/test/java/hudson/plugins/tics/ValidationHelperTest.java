@@ -0,0 +1,79 @@
+package hudson.plugins.tics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import hudson.util.FormValidation;
+
+public class ValidationHelperTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    private FakeTicsViewer viewer;
+
+    @Before
+    public void setUp() throws Exception {
+        viewer = new FakeTicsViewer();
+    }
+
+    @After
+    public void tearDown() {
+        viewer.close();
+    }
+
+    @Test
+    public void testSlowCheckIsPendingAndCompletesInBackground() throws Exception {
+        viewer.withLatency(1, TimeUnit.SECONDS);
+
+        final Optional<FormValidation> first = ValidationHelper.checkViewerBaseUrlAccessibility(viewer.getBaseUrl(), System.currentTimeMillis() + 100);
+        assertTrue(first.isPresent());
+        assertTrue(ValidationHelper.isPending(first.get()));
+
+        // The check that is still running is reused, so that validating again does not call the viewer again
+        final Optional<FormValidation> second = ValidationHelper.checkViewerBaseUrlAccessibility(viewer.getBaseUrl(), System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10));
+        assertFalse(second.isPresent());
+        assertEquals(1, viewer.getRequestCount());
+    }
+
+    @Test
+    public void testChecksShareOneDeadline() throws Exception {
+        viewer.withLatency(1, TimeUnit.SECONDS);
+        final long deadline = System.currentTimeMillis() + 1500;
+
+        final long start = System.currentTimeMillis();
+        ValidationHelper.checkViewerBaseUrlAccessibility(viewer.getBaseUrl(), deadline);
+        final Optional<FormValidation> path = ValidationHelper.checkTicsPathAccessibility(ValidationHelper.getMeasureApiUrl(viewer.getBaseUrl()),
+                "HIE://project/main", "job", Optional.empty(), deadline);
+
+        // The second check is not given a deadline of its own
+        assertTrue(System.currentTimeMillis() - start < 2500);
+        assertTrue(path.isPresent());
+        assertTrue(ValidationHelper.isPending(path.get()));
+    }
+
+    @Test
+    public void testPathCheckIsNotSharedBetweenCredentials() throws Exception {
+        final String measureApiUrl = ValidationHelper.getMeasureApiUrl(viewer.getBaseUrl());
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+
+        ValidationHelper.checkTicsPathAccessibility(measureApiUrl, "HIE://project/main", "job", Optional.of(Pair.of("alice", "secret")), deadline);
+        ValidationHelper.checkTicsPathAccessibility(measureApiUrl, "HIE://project/main", "job", Optional.of(Pair.of("alice", "secret")), deadline);
+        assertEquals(1, viewer.getRequestCount());
+
+        ValidationHelper.checkTicsPathAccessibility(measureApiUrl, "HIE://project/main", "job", Optional.of(Pair.of("bob", "secret")), deadline);
+        ValidationHelper.checkTicsPathAccessibility(measureApiUrl, "HIE://project/main", "other-job", Optional.of(Pair.of("alice", "secret")), deadline);
+        assertEquals(3, viewer.getRequestCount());
+    }
+}